@@ -0,0 +1,51 @@
+package com.trackify.trackify.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Read-through caches for user lookups.
+ * Caffeine gives bounded W-TinyLFU caches; stats are recorded so Micrometer exposes hit/miss counts.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+    public static final String USER_SETTINGS_CACHE = "userSettings";
+
+    @Value("${trackify.cache.users.max-size:50000}")
+    private long usersMaxSize;
+
+    @Value("${trackify.cache.users.ttl-seconds:300}")
+    private long usersTtlSeconds;
+
+    @Value("${trackify.cache.user-settings.max-size:50000}")
+    private long userSettingsMaxSize;
+
+    @Value("${trackify.cache.user-settings.ttl-seconds:600}")
+    private long userSettingsTtlSeconds;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+                .maximumSize(usersMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(usersTtlSeconds))
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USER_SETTINGS_CACHE, Caffeine.newBuilder()
+                .maximumSize(userSettingsMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(userSettingsTtlSeconds))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
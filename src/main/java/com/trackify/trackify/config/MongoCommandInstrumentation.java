@@ -0,0 +1,240 @@
+package com.trackify.trackify.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo command listener behind the per-repository database metrics.
+ * Records a latency histogram per collection, command and originating repository method,
+ * logs commands slower than a threshold, and explains a sample of queries in the background
+ * to flag the ones whose winning plan is a collection scan.
+ */
+@Slf4j
+@Component
+public class MongoCommandInstrumentation implements CommandListener {
+
+    private static final Set<String> EXPLAINABLE_COMMANDS =
+            Set.of("find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+    private static final Set<String> SESSION_FIELDS =
+            Set.of("$db", "lsid", "$clusterTime", "txnNumber", "$readPreference", "autocommit",
+                    "startTransaction", "readConcern", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<MongoClient> mongoClientProvider;
+    private final Duration slowCommandThreshold;
+    private final double explainSampleRate;
+
+    private final Map<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+    // getMore batches are attributed to the repository method that opened the cursor
+    private final Cache<Long, String> cursorOrigins = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    private final Cache<String, Boolean> reportedScans = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+    private final ExecutorService explainExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore explainPermit = new Semaphore(1);
+
+    public MongoCommandInstrumentation(MeterRegistry meterRegistry,
+                                       ObjectProvider<MongoClient> mongoClientProvider,
+                                       @Value("${trackify.mongo.instrumentation.slow-command-threshold-ms:100}") long slowCommandThresholdMs,
+                                       @Value("${trackify.mongo.instrumentation.explain-sample-rate:0.01}") double explainSampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.mongoClientProvider = mongoClientProvider;
+        this.slowCommandThreshold = Duration.ofMillis(slowCommandThresholdMs);
+        this.explainSampleRate = explainSampleRate;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String commandName = event.getCommandName();
+        BsonDocument command = event.getCommand();
+
+        String origin = RepositoryMethodContext.current();
+        if ("getMore".equals(commandName) && command.isNumber("getMore")) {
+            String cursorOrigin = cursorOrigins.getIfPresent(command.getNumber("getMore").longValue());
+            if (cursorOrigin != null) {
+                origin = cursorOrigin;
+            }
+        }
+
+        // The command buffer is released after this callback, so copy what is needed now
+        String collection = collectionName(commandName, command);
+        inFlight.put(event.getRequestId(), new StartedCommand(commandName, collection, origin));
+
+        if (shouldExplain(commandName, command)) {
+            scheduleExplain(event.getDatabaseName(), collection, origin, command.clone());
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        StartedCommand started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+
+        trackCursor(started, event.getResponse());
+        record(started, event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        StartedCommand started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+
+        record(started, event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    private void record(StartedCommand started, long elapsedNanos, String status) {
+        Timer.builder("trackify.mongo.commands")
+                .description("Mongo command latency by collection, command and repository method")
+                .tag("collection", started.collection())
+                .tag("command", started.commandName())
+                .tag("method", started.origin())
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos >= slowCommandThreshold.toNanos()) {
+            log.warn("Slow Mongo command: {} on {} from {} took {} ms ({})",
+                    started.commandName(), started.collection(), started.origin(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), status);
+        }
+    }
+
+    private void trackCursor(StartedCommand started, BsonDocument response) {
+        BsonDocument cursor = response != null && response.isDocument("cursor") ? response.getDocument("cursor") : null;
+        if (cursor == null || !cursor.isNumber("id")) {
+            return;
+        }
+
+        long cursorId = cursor.getNumber("id").longValue();
+        if (cursorId == 0) {
+            return;
+        }
+        if (!RepositoryMethodContext.UNKNOWN.equals(started.origin())) {
+            cursorOrigins.put(cursorId, started.origin());
+        }
+    }
+
+    private String collectionName(String commandName, BsonDocument command) {
+        BsonValue target = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return target != null && target.isString() ? target.asString().getValue() : "none";
+    }
+
+    private boolean shouldExplain(String commandName, BsonDocument command) {
+        if (explainSampleRate <= 0 || !EXPLAINABLE_COMMANDS.contains(commandName)) {
+            return false;
+        }
+        // Tailable cursors on capped collections scan by design
+        if (command.isBoolean("tailable") && command.getBoolean("tailable").getValue()) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() < explainSampleRate;
+    }
+
+    private void scheduleExplain(String database, String collection, String origin, BsonDocument command) {
+        // At most one explain in flight; samples that arrive meanwhile are dropped
+        if (!explainPermit.tryAcquire()) {
+            return;
+        }
+
+        explainExecutor.execute(() -> {
+            try {
+                explain(database, collection, origin, command);
+            } catch (RuntimeException e) {
+                log.debug("Explain of {} on {} failed: {}", command.getFirstKey(), collection, e.getMessage());
+            } finally {
+                explainPermit.release();
+            }
+        });
+    }
+
+    private void explain(String database, String collection, String origin, BsonDocument command) {
+        SESSION_FIELDS.forEach(command::remove);
+        BsonDocument explainCommand = new BsonDocument("explain", command)
+                .append("verbosity", new BsonString("queryPlanner"));
+
+        Document plan = mongoClientProvider.getObject().getDatabase(database).runCommand(explainCommand);
+        if (!containsCollectionScan(plan)) {
+            return;
+        }
+
+        Counter.builder("trackify.mongo.collection.scans")
+                .description("Sampled queries whose winning plan is a collection scan")
+                .tag("collection", collection)
+                .tag("method", origin)
+                .register(meterRegistry)
+                .increment();
+
+        if (reportedScans.asMap().putIfAbsent(origin + "@" + collection, Boolean.TRUE) == null) {
+            log.warn("COLLSCAN detected: {} on {} from {} has no usable index. Query: {}",
+                    command.getFirstKey(), collection, origin, command.toJson());
+        }
+    }
+
+    /**
+     * Looks for a COLLSCAN stage anywhere in the explain output except among rejected plans.
+     */
+    private boolean containsCollectionScan(Object node) {
+        if (node instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                if (!"rejectedPlans".equals(entry.getKey()) && containsCollectionScan(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object element : list) {
+                if (containsCollectionScan(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private record StartedCommand(String commandName, String collection, String origin) {
+    }
+}
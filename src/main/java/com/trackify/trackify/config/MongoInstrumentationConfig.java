@@ -0,0 +1,40 @@
+package com.trackify.trackify.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Wires {@link MongoCommandInstrumentation} into the Mongo client and tags every repository
+ * proxy so commands can be attributed to the repository method that issued them.
+ * Connection pool metrics come from Spring Boot's own Mongo metrics auto-configuration.
+ */
+@Configuration
+@ConditionalOnProperty(name = "trackify.mongo.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class MongoInstrumentationConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandInstrumentationCustomizer(
+            MongoCommandInstrumentation instrumentation) {
+        return builder -> builder.addCommandListener(instrumentation);
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryMethodTaggingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(RepositoryMethodContext.interceptorFor(
+                                            repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
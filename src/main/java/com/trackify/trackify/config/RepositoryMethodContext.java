@@ -0,0 +1,44 @@
+package com.trackify.trackify.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Remembers which repository method the current thread is executing, so Mongo commands
+ * can be attributed to it (e.g. "UserRepository.findBySlackUserId").
+ */
+public final class RepositoryMethodContext {
+
+    public static final String UNKNOWN = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    public static String current() {
+        String method = CURRENT.get();
+        return method != null ? method : UNKNOWN;
+    }
+
+    /**
+     * Advice added to every repository proxy.
+     */
+    static MethodInterceptor interceptorFor(Class<?> repositoryInterface) {
+        String repositoryName = repositoryInterface.getSimpleName();
+        return (MethodInvocation invocation) -> {
+            String previous = CURRENT.get();
+            CURRENT.set(repositoryName + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                // Restore rather than clear: custom fragments may call other repositories
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+}
@@ -8,10 +8,11 @@ import com.slack.api.bolt.service.builtin.oauth.OAuthErrorHandler;
 import com.slack.api.bolt.service.builtin.oauth.OAuthV2SuccessHandler;
 import com.slack.api.bolt.request.builtin.OAuthCallbackRequest;
 import com.slack.api.methods.response.oauth.OAuthV2AccessResponse;
-import com.trackify.trackify.constants.AppConstants;
 import com.trackify.trackify.service.MongoDBInstallationService;
 import com.trackify.trackify.service.MongoDBOAuthStateService;
 import com.trackify.trackify.service.OAuthTemplateService;
+import com.trackify.trackify.service.SpotifyService;
+import com.trackify.trackify.slack.SlackRequestDeduplicator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -60,7 +61,9 @@ public class SlackConfig {
             AppConfig appConfig,
             MongoDBInstallationService installationService,
             MongoDBOAuthStateService oauthStateService,
-            OAuthTemplateService templateService) {
+            OAuthTemplateService templateService,
+            SpotifyService spotifyService,
+            SlackRequestDeduplicator requestDeduplicator) {
 
         App app = new App(appConfig);
 
@@ -69,6 +72,9 @@ public class SlackConfig {
         app.service(installationService);
         app.service(oauthStateService);
 
+        // Ack Slack redeliveries without dispatching them to the handlers again
+        app.use(requestDeduplicator);
+
         // OAuth V2 Success Handler - called after Slack OAuth completes
         app.oauthCallback((OAuthV2SuccessHandler) (req, resp, oauthAccess) -> {
             String slackUserId = oauthAccess.getAuthedUser().getId();
@@ -113,8 +119,8 @@ public class SlackConfig {
                             .build();
                 }
 
-                // Generate Spotify OAuth link with userId
-                String spotifyAuthLink = AppConstants.OAUTH_SPOTIFY_PATH + "?userId=" + userId;
+                // Spotify OAuth link carrying a signed state for the new user
+                String spotifyAuthLink = spotifyService.buildConnectLink(userId);
                 String successHtml = templateService.renderSuccess(spotifyAuthLink);
 
                 return com.slack.api.bolt.response.Response.builder()
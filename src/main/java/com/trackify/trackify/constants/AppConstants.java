@@ -30,7 +30,7 @@ public final class AppConstants {
 
     // Spotify
     public static final String SPOTIFY_GREEN_COLOR = "#1DB954";
-    public static final String SPOTIFY_USER_ID_PREFIX = "spotify_user_";
+    public static final String SPOTIFY_USER_ID_PREFIX = "spotify_user_"; // Placeholder IDs stored before /me was resolved
     public static final String UNKNOWN_ARTIST = "Unknown Artist";
 
     // Template placeholders
@@ -3,6 +3,7 @@ package com.trackify.trackify.controller;
 import com.trackify.trackify.constants.AppConstants;
 import com.trackify.trackify.service.SpotifyService;
 import com.trackify.trackify.service.UserService;
+import com.trackify.trackify.util.OAuthStateSigner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -22,25 +23,31 @@ public class OAuthController {
 
     private final UserService userService;
     private final SpotifyService spotifyService;
+    private final OAuthStateSigner stateSigner;
 
+    /**
+     * Entry point of the links built by {@link SpotifyService#buildConnectLink}. The state was signed when the
+     * link was issued in Slack; it is only checked here and passed on, and the callback consumes it.
+     */
     @GetMapping("/spotify")
-    public RedirectView initiateSpotifyOAuth(@RequestParam("userId") String userId) {
+    public RedirectView initiateSpotifyOAuth(@RequestParam(value = "state", required = false) String state) {
+        String userId = stateSigner.verify(state).orElse(null);
         if (userId == null || userId.trim().isEmpty()) {
-            log.warn("Spotify OAuth initiated without userId");
+            log.warn("Spotify OAuth initiated without a valid state");
             return new RedirectView(AppConstants.ERROR_PATH + "?message=" + AppConstants.ERROR_PARAM_INVALID_USER);
         }
 
         log.info("Initiating Spotify OAuth flow for user: {}", userId);
 
         URI authUri = spotifyService.getAuthorizationUri();
-        String redirectUrl = authUri.toString() + "&state=" + userId;
+        String redirectUrl = authUri.toString() + "&state=" + state;
 
         return new RedirectView(redirectUrl);
     }
 
     @GetMapping("/spotify/callback")
     public String handleSpotifyCallback(@RequestParam("code") String code,
-                                        @RequestParam(value = "state", required = false) String userId,
+                                        @RequestParam(value = "state", required = false) String state,
                                         @RequestParam(value = "error", required = false) String error) {
         try {
             if (error != null) {
@@ -48,8 +55,9 @@ public class OAuthController {
                 return "redirect:" + AppConstants.ERROR_PATH + "?message=" + AppConstants.ERROR_PARAM_SPOTIFY_DENIED;
             }
 
+            String userId = stateSigner.consume(state).orElse(null);
             if (userId == null || userId.trim().isEmpty()) {
-                log.error("Spotify OAuth callback received without userId");
+                log.error("Spotify OAuth callback received without a valid state");
                 return "redirect:" + AppConstants.ERROR_PATH + "?message=" + AppConstants.ERROR_PARAM_INVALID_USER;
             }
 
@@ -58,8 +66,11 @@ public class OAuthController {
             // Exchange code for access token
             AuthorizationCodeCredentials credentials = spotifyService.getAccessToken(code);
 
-            // Generate temporary Spotify user ID (will be updated on first sync)
-            String spotifyUserId = AppConstants.SPOTIFY_USER_ID_PREFIX + System.currentTimeMillis();
+            // The real account ID lets the sync poll an account linked from several workspaces once
+            String spotifyUserId = spotifyService.getSpotifyUserId(credentials.getAccessToken());
+            if (spotifyUserId == null) {
+                log.warn("Could not resolve Spotify account for user {}, retrying on the next token refresh", userId);
+            }
 
             // Update user with Spotify tokens
             userService.updateSpotifyTokens(
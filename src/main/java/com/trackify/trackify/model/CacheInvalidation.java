@@ -0,0 +1,33 @@
+package com.trackify.trackify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A cache key evicted on one node, broadcast to the others through a capped collection.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cache_invalidations")
+public class CacheInvalidation {
+
+    @Id
+    private ObjectId id;
+
+    private String cacheName;
+
+    private String key;
+
+    private String originNodeId;
+
+    private LocalDateTime createdAt;
+}
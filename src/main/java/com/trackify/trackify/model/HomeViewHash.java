@@ -0,0 +1,29 @@
+package com.trackify.trackify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hash of the App Home view last published for a user.
+ * Lets publishes be skipped across restarts when the rendered view has not changed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "home_view_hashes")
+public class HomeViewHash {
+
+    @Id
+    private String slackUserId;
+
+    private String hash;
+
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,42 @@
+package com.trackify.trackify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a resumable background migration, keyed by migration name.
+ * Also a lease: only the node named in it runs the migration, until the lease expires unrenewed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "migration_checkpoints")
+public class MigrationCheckpoint {
+
+    @Id
+    private String id;
+
+    private ObjectId lastProcessedId; // Resume point: the scan continues after this user _id
+
+    private long scannedCount;
+
+    private long updatedCount;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    private String leaseOwner; // Node currently running the migration
+
+    private LocalDateTime leaseExpiresAt; // Another node may take over once this passes
+}
@@ -0,0 +1,29 @@
+package com.trackify.trackify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker for a Slack event or interaction that has already been dispatched.
+ * Shared across instances when the dedup store is set to mongo; expired by a TTL index.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "processed_slack_requests")
+public class ProcessedSlackRequest {
+
+    @Id
+    private String key;
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,85 @@
+package com.trackify.trackify.model;
+
+import lombok.Data;
+
+/**
+ * In-memory sync state for a single user, kept between polling cycles.
+ * Nothing here is persisted; after a restart the engine simply re-learns it.
+ * Every field is volatile: syncs for a user run one at a time but on different virtual threads, and
+ * Slack handler threads read and reset the hibernation state.
+ */
+@Data
+public class SyncSession {
+
+    private final String userId;
+
+    private volatile Long playbackStoppedAt; // Epoch millis when playback was first seen stopped, null while playing
+
+    private volatile Long statusExpiresAt; // Epoch seconds of the status_expiration we last sent to Slack
+
+    private volatile StatusPhase statusPhase = StatusPhase.UNKNOWN;
+
+    private volatile String statusTrackId; // Track the status on Slack was set for
+
+    private volatile Long trackEndsAt; // Epoch millis the current track is expected to end, from its last reported progress
+
+    private volatile long lastSyncFinishedAt; // Epoch millis, so the cycle knows when batch-loaded sync state went stale
+
+    // Hibernation: written by the sync worker, reset from Slack handler threads on wake-up
+    private volatile int idlePolls; // Consecutive polls that found nothing playing and nothing to clear
+
+    private volatile int hibernationDepth; // 0 = polled every cycle; each level doubles the poll interval
+
+    private volatile long nextPollAt; // Epoch millis before which the cycle skips this user
+
+    public boolean hasStatusExpired(long nowMillis) {
+        return statusExpiresAt != null && statusExpiresAt * 1000 <= nowMillis;
+    }
+
+    /**
+     * Whether this poll is likely to end in a status write, so the Slack status is worth reading up front:
+     * nothing is known yet, the track should have ended, or the status has expired.
+     */
+    public boolean isWriteExpected(long nowMillis) {
+        return statusPhase == StatusPhase.UNKNOWN
+                || (trackEndsAt != null && trackEndsAt <= nowMillis)
+                || hasStatusExpired(nowMillis);
+    }
+
+    /**
+     * Nothing of ours is on Slack any more, e.g. after a clear.
+     */
+    public void resetStatus() {
+        statusPhase = StatusPhase.CLEARED;
+        statusTrackId = null;
+        statusExpiresAt = null;
+        trackEndsAt = null;
+    }
+
+    public boolean isPollDue(long nowMillis) {
+        return nowMillis >= nextPollAt;
+    }
+
+    /**
+     * Back to polling every cycle, e.g. because music started or the user interacted with the app.
+     */
+    public void wake() {
+        idlePolls = 0;
+        hibernationDepth = 0;
+        nextPollAt = 0;
+    }
+
+    /**
+     * Where the status on Slack stands, as far as the sync engine knows.
+     * UNKNOWN until the first write after startup; SHOWING once a track's status is set; REFRESHED once its
+     * expiration has been extended, which happens at most once per track; MANUAL while the user's own status
+     * is left alone; CLEARED after playback stopped and the status was removed.
+     */
+    public enum StatusPhase {
+        UNKNOWN,
+        SHOWING,
+        REFRESHED,
+        MANUAL,
+        CLEARED
+    }
+}
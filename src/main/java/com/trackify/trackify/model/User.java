@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -15,6 +16,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "users")
+@CompoundIndex(name = "team_updated_idx", def = "{'slackTeamId': 1, 'updatedAt': -1}") // Bolt installation lookups
+// Sync poll set, walked in Spotify account order so linked identities are polled together
+@CompoundIndex(name = "active_account_dormant_idx", def = "{'active': 1, 'spotifyUserId': 1, 'dormantUntil': 1}")
 public class User {
 
     @Id
@@ -25,11 +29,11 @@ public class User {
 
     private String slackTeamId;
 
-    private String slackAccessToken;  // User token for profile updates
+    private String encryptedSlackAccessToken;  // User token for profile updates
 
-    private String slackBotToken;  // Bot token for App Home and events
+    private String encryptedSlackBotToken;  // Bot token for App Home and events
 
-    private String spotifyUserId;
+    private String spotifyUserId; // Shared by every Slack identity linked to the same Spotify account
 
     private String encryptedSpotifyAccessToken;
 
@@ -37,23 +41,15 @@ public class User {
 
     private LocalDateTime spotifyTokenExpiresAt;
 
-    private String currentlyPlayingSongId;
-
-    private String currentlyPlayingSongTitle;
-
-    private String currentlyPlayingArtist;
-
-    private LocalDateTime lastSyncedAt;
-
-    private String lastSetStatusText; // The status text we last set, used to detect manual changes
-
-    private boolean manualStatusSet; // Flag indicating user manually changed their status
+    // Now-playing and last-set-status tracking live in UserSyncState
 
     // Token invalidation tracking
     private boolean tokenInvalidated; // Flag indicating Slack or Spotify token has been revoked
 
     private LocalDateTime tokenInvalidatedAt; // When the token invalidation was detected
 
+    private LocalDateTime dormantUntil; // Outside working hours: left out of the poll set until this time
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -59,6 +59,10 @@ public class UserSettings {
 
     private Integer timezoneOffsetSeconds; // User's timezone offset from UTC in seconds
 
+    private String timezoneId; // IANA zone from Slack (e.g. "Europe/Berlin"), preferred over the fixed offset
+
+    private java.util.List<WorkingHoursWindow> weeklySchedule; // Per-day local windows (null = legacy UTC start/end)
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -0,0 +1,37 @@
+package com.trackify.trackify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user state written by the sync engine every few minutes.
+ * Kept out of {@link User} so hot updates touch a small document and never invalidate the cached user.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "user_sync_state")
+public class UserSyncState {
+
+    @Id
+    private String userId;  // Same as User.id
+
+    private String currentlyPlayingSongId;
+
+    private String currentlyPlayingSongTitle;
+
+    private String currentlyPlayingArtist;
+
+    private LocalDateTime lastSyncedAt;
+
+    private String lastSetStatusText; // The status text we last set, used to detect manual changes
+
+    private boolean manualStatusSet; // Flag indicating user manually changed their status
+}
@@ -0,0 +1,25 @@
+package com.trackify.trackify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+
+/**
+ * One sync window on one day of the week, in the user's local time.
+ * An end at or before the start runs past midnight into the next day.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkingHoursWindow {
+
+    private DayOfWeek dayOfWeek;
+
+    private String start; // HH:mm, local time
+
+    private String end; // HH:mm, local time
+}
@@ -0,0 +1,13 @@
+package com.trackify.trackify.repository;
+
+import com.trackify.trackify.model.HomeViewHash;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for persisted App Home view hashes.
+ * Only used when trackify.home.view-hash.persist is enabled.
+ */
+@Repository
+public interface HomeViewHashRepository extends MongoRepository<HomeViewHash, String> {
+}
@@ -0,0 +1,13 @@
+package com.trackify.trackify.repository;
+
+import com.trackify.trackify.model.ProcessedSlackRequest;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the shared Slack request dedup store.
+ * Used by SlackRequestDeduplicator when trackify.slack.dedup.store=mongo.
+ */
+@Repository
+public interface ProcessedSlackRequestRepository extends MongoRepository<ProcessedSlackRequest, String> {
+}
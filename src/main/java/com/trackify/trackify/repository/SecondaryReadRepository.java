@@ -0,0 +1,87 @@
+package com.trackify.trackify.repository;
+
+import com.mongodb.ReadPreference;
+import com.trackify.trackify.model.User;
+import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.UserSyncState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only lookups for UI rendering, routed to secondaries.
+ * Uses secondaryPreferred with a bounded maxStalenessSeconds when trackify.mongo.read-routing
+ * is enabled; otherwise (or without Mongo) it reads through the regular repositories on the primary.
+ * The sync loop, token flows and Bolt installation lookups never use this repository.
+ */
+@Slf4j
+@Repository
+public class SecondaryReadRepository {
+
+    private final UserRepository userRepository;
+    private final UserSettingsRepository userSettingsRepository;
+    private final UserSyncStateRepository userSyncStateRepository;
+    private final MongoTemplate secondaryTemplate;
+
+    public SecondaryReadRepository(UserRepository userRepository,
+                                   UserSettingsRepository userSettingsRepository,
+                                   UserSyncStateRepository userSyncStateRepository,
+                                   ObjectProvider<MongoDatabaseFactory> databaseFactory,
+                                   ObjectProvider<MongoConverter> converter,
+                                   @Value("${trackify.mongo.read-routing.enabled:false}") boolean enabled,
+                                   @Value("${trackify.mongo.read-routing.max-staleness-seconds:90}") long maxStalenessSeconds) {
+        this.userRepository = userRepository;
+        this.userSettingsRepository = userSettingsRepository;
+        this.userSyncStateRepository = userSyncStateRepository;
+        this.secondaryTemplate = enabled
+                ? secondaryTemplate(databaseFactory.getIfAvailable(), converter.getIfAvailable(), maxStalenessSeconds)
+                : null;
+    }
+
+    private static MongoTemplate secondaryTemplate(MongoDatabaseFactory databaseFactory, MongoConverter converter,
+                                                   long maxStalenessSeconds) {
+        if (databaseFactory == null || converter == null) {
+            return null;
+        }
+
+        // Kept out of the context so the primary MongoTemplate stays the only MongoOperations bean
+        MongoTemplate template = new MongoTemplate(databaseFactory, converter);
+        template.setReadPreference(ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS));
+        log.info("UI reads routed to secondaries (maxStalenessSeconds: {})", maxStalenessSeconds);
+        return template;
+    }
+
+    public Optional<User> findUserBySlackUserId(String slackUserId) {
+        if (secondaryTemplate == null) {
+            return userRepository.findBySlackUserId(slackUserId);
+        }
+        return findOne(Query.query(Criteria.where("slackUserId").is(slackUserId)), User.class);
+    }
+
+    public Optional<UserSettings> findSettingsByUserId(String userId) {
+        if (secondaryTemplate == null) {
+            return userSettingsRepository.findByUserId(userId);
+        }
+        return findOne(Query.query(Criteria.where("userId").is(userId)), UserSettings.class);
+    }
+
+    public Optional<UserSyncState> findSyncState(String userId) {
+        if (secondaryTemplate == null) {
+            return userSyncStateRepository.findById(userId);
+        }
+        return findOne(Query.query(Criteria.where("_id").is(userId)), UserSyncState.class);
+    }
+
+    private <T> Optional<T> findOne(Query query, Class<T> type) {
+        return Optional.ofNullable(secondaryTemplate.findOne(query, type));
+    }
+}
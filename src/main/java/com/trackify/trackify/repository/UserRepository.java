@@ -1,22 +1,35 @@
 package com.trackify.trackify.repository;
 
 import com.trackify.trackify.model.User;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
 
     Optional<User> findBySlackUserId(String slackUserId);
 
     Optional<User> findBySlackTeamId(String slackTeamId);
 
-    Optional<User> findBySpotifyUserId(String spotifyUserId);
+    Optional<User> findFirstBySlackTeamIdOrderByUpdatedAtDesc(String slackTeamId);
 
-    List<User> findByActiveTrue();
+    Optional<User> findFirstBySlackTeamIdAndEncryptedSlackBotTokenIsNotNullOrderByUpdatedAtDesc(String slackTeamId);
+
+    /**
+     * Streams the active users that are not dormant (outside working hours) at the given time, sorted by
+     * Spotify account so the identities linked to one account come one after the other.
+     * The caller must close the stream.
+     */
+    @Meta(cursorBatchSize = 500)
+    @Query(value = "{ 'active': true, '$or': [ { 'dormantUntil': null }, { 'dormantUntil': { '$lte': ?0 } } ] }",
+            sort = "{ 'spotifyUserId': 1 }")
+    Stream<User> streamAwakeByActiveTrue(LocalDateTime now);
 
     boolean existsBySlackUserId(String slackUserId);
 }
@@ -0,0 +1,16 @@
+package com.trackify.trackify.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Bulk updates of the users collection that must not rewrite whole documents.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Sets (or with null, clears) the instant until which the users are left out of the poll set.
+     * The ids go into one query, so callers keep the batch bounded.
+     */
+    void setDormantUntil(Collection<String> userIds, LocalDateTime dormantUntil);
+}
@@ -0,0 +1,29 @@
+package com.trackify.trackify.repository;
+
+import com.trackify.trackify.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void setDormantUntil(Collection<String> userIds, LocalDateTime dormantUntil) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        Update update = dormantUntil != null
+                ? new Update().set("dormantUntil", dormantUntil)
+                : new Update().unset("dormantUntil");
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(userIds)), update, User.class);
+    }
+}
@@ -1,10 +1,12 @@
 package com.trackify.trackify.repository;
 
 import com.trackify.trackify.model.UserSettings;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserSettingsRepository extends MongoRepository<UserSettings, String> {
@@ -14,4 +16,11 @@ public interface UserSettingsRepository extends MongoRepository<UserSettings, St
     boolean existsByUserId(String userId);
 
     void deleteByUserId(String userId);
+
+    /**
+     * Streams the settings of every user with working hours, for compiling the working-hours calendar.
+     * The caller must close the stream.
+     */
+    @Meta(cursorBatchSize = 500)
+    Stream<UserSettings> streamByWorkingHoursEnabledTrue();
 }
@@ -0,0 +1,13 @@
+package com.trackify.trackify.repository;
+
+import com.trackify.trackify.model.UserSyncState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the hot per-user sync state.
+ * Writes on the sync path go through the field-level upserts in {@link UserSyncStateRepositoryCustom}.
+ */
+@Repository
+public interface UserSyncStateRepository extends MongoRepository<UserSyncState, String>, UserSyncStateRepositoryCustom {
+}
@@ -0,0 +1,15 @@
+package com.trackify.trackify.repository;
+
+/**
+ * Partial updates of the sync state. Each method upserts only the fields it changes.
+ */
+public interface UserSyncStateRepositoryCustom {
+
+    void updateCurrentlyPlaying(String userId, String songId, String title, String artist);
+
+    void clearCurrentlyPlaying(String userId);
+
+    void updateLastSetStatus(String userId, String statusText);
+
+    void setManualStatusSet(String userId, boolean manualStatusSet);
+}
@@ -0,0 +1,49 @@
+package com.trackify.trackify.repository;
+
+import com.trackify.trackify.model.UserSyncState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class UserSyncStateRepositoryImpl implements UserSyncStateRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void updateCurrentlyPlaying(String userId, String songId, String title, String artist) {
+        upsert(userId, new Update()
+                .set("currentlyPlayingSongId", songId)
+                .set("currentlyPlayingSongTitle", title)
+                .set("currentlyPlayingArtist", artist)
+                .set("lastSyncedAt", LocalDateTime.now()));
+    }
+
+    @Override
+    public void clearCurrentlyPlaying(String userId) {
+        upsert(userId, new Update()
+                .unset("currentlyPlayingSongId")
+                .unset("currentlyPlayingSongTitle")
+                .unset("currentlyPlayingArtist"));
+    }
+
+    @Override
+    public void updateLastSetStatus(String userId, String statusText) {
+        upsert(userId, new Update()
+                .set("lastSetStatusText", statusText)
+                .set("manualStatusSet", false)); // Clear manual flag when we set status
+    }
+
+    @Override
+    public void setManualStatusSet(String userId, boolean manualStatusSet) {
+        upsert(userId, new Update().set("manualStatusSet", manualStatusSet));
+    }
+
+    private void upsert(String userId, Update update) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)), update, UserSyncState.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.trackify.trackify.repository.inmemory;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Fluent query-by-example for the in-memory repositories. Field projections are accepted and ignored,
+ * so results are always whole entities; projecting to an unrelated type is not supported.
+ */
+class InMemoryFluentQuery<T> implements FluentQuery.FetchableFluentQuery<T> {
+
+    private final Class<T> resultType;
+    private final Function<Sort, Stream<T>> source; // Matching entities in the given order
+    private final Sort sort;
+    private final int limit; // 0 = no limit
+
+    InMemoryFluentQuery(Class<T> resultType, Function<Sort, Stream<T>> source) {
+        this(resultType, source, Sort.unsorted(), 0);
+    }
+
+    private InMemoryFluentQuery(Class<T> resultType, Function<Sort, Stream<T>> source, Sort sort, int limit) {
+        this.resultType = resultType;
+        this.source = source;
+        this.sort = sort;
+        this.limit = limit;
+    }
+
+    @Override
+    public FetchableFluentQuery<T> sortBy(Sort sort) {
+        return new InMemoryFluentQuery<>(resultType, source, this.sort.and(sort), limit);
+    }
+
+    @Override
+    public FetchableFluentQuery<T> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        return new InMemoryFluentQuery<>(resultType, source, sort, limit);
+    }
+
+    @Override
+    public <R> FetchableFluentQuery<R> as(Class<R> resultType) {
+        if (!resultType.isAssignableFrom(this.resultType)) {
+            throw new UnsupportedOperationException("In-memory repositories do not project to " + resultType.getName());
+        }
+        return new InMemoryFluentQuery<>(resultType, order -> source.apply(order).map(resultType::cast), sort, limit);
+    }
+
+    @Override
+    public FetchableFluentQuery<T> project(Collection<String> properties) {
+        return this;
+    }
+
+    @Override
+    public T oneValue() {
+        List<T> results = fetch(sort).limit(2).toList();
+        if (results.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1);
+        }
+        return results.isEmpty() ? null : results.getFirst();
+    }
+
+    @Override
+    public T firstValue() {
+        return fetch(sort).findFirst().orElse(null);
+    }
+
+    @Override
+    public List<T> all() {
+        return stream().toList();
+    }
+
+    @Override
+    public Page<T> page(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all());
+        }
+        List<T> content = fetch(sort.and(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, count());
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return fetch(sort);
+    }
+
+    @Override
+    public long count() {
+        return fetch(Sort.unsorted()).count();
+    }
+
+    @Override
+    public boolean exists() {
+        return fetch(Sort.unsorted()).findAny().isPresent();
+    }
+
+    private Stream<T> fetch(Sort order) {
+        Stream<T> results = source.apply(order);
+        return limit > 0 ? results.limit(limit) : results;
+    }
+}
@@ -0,0 +1,16 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.HomeViewHash;
+import com.trackify.trackify.repository.HomeViewHashRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryHomeViewHashRepository extends InMemoryMongoRepository<HomeViewHash, String>
+        implements HomeViewHashRepository {
+
+    public InMemoryHomeViewHashRepository() {
+        super(HomeViewHash.class, HomeViewHash::getSlackUserId);
+    }
+}
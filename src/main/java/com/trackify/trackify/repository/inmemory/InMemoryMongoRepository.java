@@ -0,0 +1,532 @@
+package com.trackify.trackify.repository.inmemory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Thread-safe, map-backed stand-in for a Mongo repository, used by the inmemory profile.
+ * Entities are deep-copied on the way in and out, so callers get the same detached objects a
+ * Mongo round trip would give them. Writes are serialized so unique constraints hold;
+ * reads never block. Lookup and unique fields are served from hash indexes kept in step with
+ * every write, the way Mongo indexes would serve them.
+ */
+public abstract class InMemoryMongoRepository<T, ID> implements MongoRepository<T, ID> {
+
+    private final Map<ID, T> store = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Map<String, Index<T, ID>> indexes = new HashMap<>(); // Registered by subclass constructors only
+
+    private final Class<T> entityType;
+    private final Function<T, ID> idGetter;
+    private final BiConsumer<T, ID> idSetter;
+    private final Supplier<ID> idGenerator;
+
+    /**
+     * For entities with a natural ID that is always set by the caller.
+     */
+    protected InMemoryMongoRepository(Class<T> entityType, Function<T, ID> idGetter) {
+        this(entityType, idGetter, null, null);
+    }
+
+    /**
+     * For entities whose ID is generated on first save, like Mongo ObjectIds.
+     */
+    protected InMemoryMongoRepository(Class<T> entityType, Function<T, ID> idGetter,
+                                      BiConsumer<T, ID> idSetter, Supplier<ID> idGenerator) {
+        this.entityType = entityType;
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Registers a hash index on a field. Call from the subclass constructor, before anything is stored.
+     */
+    protected void index(String field, Function<T, ?> getter) {
+        indexes.put(field, new Index<>(getter, new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Hook for unique indexes. Called under the write lock before an entity is stored.
+     */
+    protected void checkUniqueConstraints(T entity, ID id) {
+    }
+
+    protected void requireUnique(String field, T entity, ID id) {
+        Index<T, ID> index = index(field);
+        Object value = index.getter().apply(entity);
+        if (value == null) {
+            return;
+        }
+        boolean taken = index.ids(value).stream().anyMatch(other -> !other.equals(id));
+        if (taken) {
+            throw new DuplicateKeyException("Duplicate " + field + ": " + value);
+        }
+    }
+
+    /**
+     * Entities whose indexed field equals the value, copied. Served from the index rather than a scan.
+     */
+    protected Stream<T> queryIndexed(String field, Object value) {
+        return indexed(field, value).map(this::copy);
+    }
+
+    protected Optional<T> findFirstIndexed(String field, Object value) {
+        return queryIndexed(field, value).findFirst();
+    }
+
+    protected boolean existsIndexed(String field, Object value) {
+        return indexed(field, value).findAny().isPresent();
+    }
+
+    protected void deleteIndexed(String field, Object value) {
+        synchronized (writeLock) {
+            indexed(field, value).map(idGetter).toList().forEach(this::remove);
+        }
+    }
+
+    /**
+     * Matching entities, copied. Filters run against the stored instances.
+     */
+    protected Stream<T> query(Predicate<T> filter) {
+        return store.values().stream().filter(filter).map(this::copy);
+    }
+
+    protected void deleteWhere(Predicate<T> filter) {
+        synchronized (writeLock) {
+            store.values().stream().filter(filter).map(idGetter).toList().forEach(this::remove);
+        }
+    }
+
+    /**
+     * Atomically updates a stored entity in place, creating it with the factory if absent (upsert).
+     */
+    protected void upsert(ID id, Supplier<T> factory, Consumer<T> update) {
+        synchronized (writeLock) {
+            T entity = store.containsKey(id) ? copy(store.get(id)) : factory.get();
+            update.accept(entity);
+            put(id, entity);
+        }
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        Objects.requireNonNull(entity, "Entity must not be null");
+        ID id = assignId(entity);
+        synchronized (writeLock) {
+            checkUniqueConstraints(entity, id);
+            put(id, copy(entity));
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        Objects.requireNonNull(entity, "Entity must not be null");
+        ID id = assignId(entity);
+        synchronized (writeLock) {
+            if (store.containsKey(id)) {
+                throw new DuplicateKeyException("Duplicate _id: " + id);
+            }
+            checkUniqueConstraints(entity, id);
+            put(id, copy(entity));
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(store.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(ID id) {
+        return store.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return query(entity -> true).toList();
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<ID> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(store::get)
+                .filter(Objects::nonNull)
+                .map(this::copy)
+                .toList();
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return query(entity -> true).sorted(comparator(sort)).toList();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll());
+        }
+        List<T> content = query(entity -> true)
+                .sorted(comparator(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, store.size());
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(ID id) {
+        synchronized (writeLock) {
+            remove(id);
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(idGetter.apply(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends ID> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        synchronized (writeLock) {
+            store.clear();
+            indexes.values().forEach(index -> index.entries().clear());
+        }
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return queryByExample(example).findFirst();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return queryByExample(example).toList();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return queryByExample(example).sorted(comparator(sort)).toList();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(example));
+        }
+        List<S> content = queryByExample(example)
+                .sorted(comparator(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, count(example));
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return store.values().stream().filter(matching(example)).count();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return store.values().stream().anyMatch(matching(example));
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new InMemoryFluentQuery<>(example.getProbeType(),
+                sort -> queryByExample(example).sorted(comparator(sort))));
+    }
+
+    /**
+     * Orders by the given properties the way Mongo does for mixed values: nulls sort first ascending.
+     */
+    protected Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            Comparator<T> byProperty = (left, right) ->
+                    compareValues(propertyValue(left, property), propertyValue(right, property));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private Object propertyValue(T entity, String property) {
+        return new BeanWrapperImpl(entity).getPropertyValue(property);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == null) {
+            return -1;
+        }
+        if (right == null) {
+            return 1;
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private ID assignId(T entity) {
+        ID id = idGetter.apply(entity);
+        if (id != null) {
+            return id;
+        }
+        if (idSetter == null) {
+            throw new IllegalArgumentException(entityType.getSimpleName() + " must have an ID before it is saved");
+        }
+        id = idGenerator.get();
+        idSetter.accept(entity, id);
+        return id;
+    }
+
+    /**
+     * Stores an entity and moves its index entries. New entries go in before the store is updated and
+     * stale ones come out after, so a concurrent lookup at worst finds an entry it then filters out.
+     */
+    private void put(ID id, T entity) {
+        indexes.values().forEach(index -> index.add(id, entity));
+        T previous = store.put(id, entity);
+        if (previous != null) {
+            indexes.values().forEach(index -> index.removeIfChanged(id, previous, entity));
+        }
+    }
+
+    private void remove(ID id) {
+        T previous = store.remove(id);
+        if (previous != null) {
+            indexes.values().forEach(index -> index.removeIfChanged(id, previous, null));
+        }
+    }
+
+    private Index<T, ID> index(String field) {
+        Index<T, ID> index = indexes.get(field);
+        if (index == null) {
+            throw new IllegalStateException("No index on " + entityType.getSimpleName() + "." + field);
+        }
+        return index;
+    }
+
+    /**
+     * Stored instances matching an indexed value. Null values are not indexed (like a sparse index),
+     * so looking them up falls back to a scan.
+     */
+    private Stream<T> indexed(String field, Object value) {
+        Index<T, ID> index = index(field);
+        if (value == null) {
+            return store.values().stream().filter(entity -> index.getter().apply(entity) == null);
+        }
+        return index.ids(value).stream()
+                .map(store::get)
+                .filter(entity -> entity != null && value.equals(index.getter().apply(entity)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends T> Stream<S> queryByExample(Example<S> example) {
+        return store.values().stream().filter(matching(example)).map(entity -> (S) copy(entity));
+    }
+
+    /**
+     * Query-by-example semantics of the Mongo repositories, on top-level properties: the probe's
+     * non-null properties (or all of them with NullHandler.INCLUDE) must match, honouring ignored
+     * paths, value transformers, string matchers and case sensitivity.
+     */
+    private Predicate<T> matching(Example<?> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        BeanWrapper probe = new BeanWrapperImpl(example.getProbe());
+        List<Predicate<T>> conditions = new ArrayList<>();
+
+        for (PropertyDescriptor property : probe.getPropertyDescriptors()) {
+            String path = property.getName();
+            if (property.getReadMethod() == null || "class".equals(path) || matcher.isIgnoredPath(path)) {
+                continue;
+            }
+
+            ExampleMatcher.PropertySpecifier specifier = matcher.getPropertySpecifiers().getForPath(path);
+            Object expected = specifier != null
+                    ? specifier.getPropertyValueTransformer().apply(Optional.ofNullable(probe.getPropertyValue(path))).orElse(null)
+                    : probe.getPropertyValue(path);
+            if (expected == null && matcher.getNullHandler() == ExampleMatcher.NullHandler.IGNORE) {
+                continue;
+            }
+
+            ExampleMatcher.StringMatcher stringMatcher = specifier != null && specifier.getStringMatcher() != null
+                    ? specifier.getStringMatcher()
+                    : matcher.getDefaultStringMatcher();
+            boolean ignoreCase = specifier != null && specifier.getIgnoreCase() != null
+                    ? specifier.getIgnoreCase()
+                    : matcher.isIgnoreCaseEnabled();
+            conditions.add(entity -> matchesValue(expected, propertyValue(entity, path), stringMatcher, ignoreCase));
+        }
+
+        if (conditions.isEmpty()) {
+            return entity -> true;
+        }
+        return matcher.isAllMatching()
+                ? entity -> conditions.stream().allMatch(condition -> condition.test(entity))
+                : entity -> conditions.stream().anyMatch(condition -> condition.test(entity));
+    }
+
+    private static boolean matchesValue(Object expected, Object actual, ExampleMatcher.StringMatcher stringMatcher,
+                                        boolean ignoreCase) {
+        if (!(expected instanceof String pattern) || !(actual instanceof String value)) {
+            return Objects.equals(expected, actual);
+        }
+        if (stringMatcher == ExampleMatcher.StringMatcher.REGEX) {
+            return Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE : 0).matcher(value).find();
+        }
+        if (ignoreCase) {
+            pattern = pattern.toLowerCase(Locale.ROOT);
+            value = value.toLowerCase(Locale.ROOT);
+        }
+        return switch (stringMatcher) {
+            case STARTING -> value.startsWith(pattern);
+            case ENDING -> value.endsWith(pattern);
+            case CONTAINING -> value.contains(pattern);
+            default -> value.equals(pattern);
+        };
+    }
+
+    private T copy(T entity) {
+        return deepCopy(entity);
+    }
+
+    /**
+     * Copies a document with its collections, maps and nested documents (classes from the entity's package),
+     * so no caller shares mutable state with the store. Everything else is treated as immutable.
+     */
+    @SuppressWarnings("unchecked")
+    private <V> V deepCopy(V source) {
+        V copy = (V) BeanUtils.instantiateClass(source.getClass());
+        BeanUtils.copyProperties(source, copy);
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(source.getClass())) {
+            if (property.getReadMethod() == null || property.getWriteMethod() == null) {
+                continue;
+            }
+            Object value = ReflectionUtils.invokeMethod(property.getReadMethod(), copy);
+            if (value instanceof Collection<?> || value instanceof Map<?, ?> || isNestedDocument(value)) {
+                ReflectionUtils.invokeMethod(property.getWriteMethod(), copy, copyValue(value));
+            }
+        }
+        return copy;
+    }
+
+    private Object copyValue(Object value) {
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new LinkedHashSet<>();
+            set.forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            collection.forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, element) -> copy.put(key, copyValue(element)));
+            return copy;
+        }
+        return isNestedDocument(value) ? deepCopy(value) : value;
+    }
+
+    private boolean isNestedDocument(Object value) {
+        return value != null && !value.getClass().isEnum() && value.getClass().getPackage() == entityType.getPackage();
+    }
+
+    /**
+     * Field value to IDs. Only written under the write lock; read without locking.
+     */
+    private record Index<T, ID>(Function<T, ?> getter, Map<Object, Set<ID>> entries) {
+
+        Set<ID> ids(Object value) {
+            return entries.getOrDefault(value, Set.of());
+        }
+
+        void add(ID id, T entity) {
+            Object value = getter.apply(entity);
+            if (value != null) {
+                entries.computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void removeIfChanged(ID id, T previous, T current) {
+            Object value = getter.apply(previous);
+            if (value == null || (current != null && value.equals(getter.apply(current)))) {
+                return;
+            }
+            entries.computeIfPresent(value, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.OAuthState;
+import com.trackify.trackify.repository.OAuthStateRepository;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * In-memory OAuth states. Expired states are treated as already removed by the TTL index.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryOAuthStateRepository extends InMemoryMongoRepository<OAuthState, String>
+        implements OAuthStateRepository {
+
+    public InMemoryOAuthStateRepository() {
+        super(OAuthState.class, OAuthState::getId, OAuthState::setId, () -> new ObjectId().toHexString());
+        index("state", OAuthState::getState);
+    }
+
+    @Override
+    protected void checkUniqueConstraints(OAuthState oauthState, String id) {
+        deleteExpired();
+        requireUnique("state", oauthState, id);
+    }
+
+    @Override
+    public Optional<OAuthState> findByState(String state) {
+        return queryIndexed("state", state).filter(notExpired()).findFirst();
+    }
+
+    @Override
+    public void deleteByState(String state) {
+        deleteIndexed("state", state);
+    }
+
+    @Override
+    public boolean existsByState(String state) {
+        return queryIndexed("state", state).anyMatch(notExpired());
+    }
+
+    private Predicate<OAuthState> notExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        return oauthState -> oauthState.getExpiresAt() == null || oauthState.getExpiresAt().isAfter(now);
+    }
+
+    private void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        deleteWhere(oauthState -> oauthState.getExpiresAt() != null && !oauthState.getExpiresAt().isAfter(now));
+    }
+}
@@ -0,0 +1,25 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.ProcessedSlackRequest;
+import com.trackify.trackify.repository.ProcessedSlackRequestRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryProcessedSlackRequestRepository extends InMemoryMongoRepository<ProcessedSlackRequest, String>
+        implements ProcessedSlackRequestRepository {
+
+    public InMemoryProcessedSlackRequestRepository() {
+        super(ProcessedSlackRequest.class, ProcessedSlackRequest::getKey);
+    }
+
+    @Override
+    protected void checkUniqueConstraints(ProcessedSlackRequest request, String id) {
+        // Stand-in for the TTL index, so expired keys can be inserted again
+        LocalDateTime now = LocalDateTime.now();
+        deleteWhere(existing -> existing.getExpiresAt() != null && !existing.getExpiresAt().isAfter(now));
+    }
+}
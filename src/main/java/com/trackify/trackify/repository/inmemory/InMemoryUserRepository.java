@@ -0,0 +1,76 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.User;
+import com.trackify.trackify.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryUserRepository extends InMemoryMongoRepository<User, String> implements UserRepository {
+
+    private static final Sort UPDATED_AT_DESC = Sort.by(Sort.Direction.DESC, "updatedAt");
+
+    public InMemoryUserRepository() {
+        super(User.class, User::getId, User::setId, () -> new ObjectId().toHexString());
+        index("slackUserId", User::getSlackUserId);
+        index("slackTeamId", User::getSlackTeamId);
+    }
+
+    @Override
+    protected void checkUniqueConstraints(User user, String id) {
+        requireUnique("slackUserId", user, id);
+    }
+
+    @Override
+    public Optional<User> findBySlackUserId(String slackUserId) {
+        return findFirstIndexed("slackUserId", slackUserId);
+    }
+
+    @Override
+    public Optional<User> findBySlackTeamId(String slackTeamId) {
+        return findFirstIndexed("slackTeamId", slackTeamId);
+    }
+
+    @Override
+    public Optional<User> findFirstBySlackTeamIdOrderByUpdatedAtDesc(String slackTeamId) {
+        return queryIndexed("slackTeamId", slackTeamId)
+                .sorted(comparator(UPDATED_AT_DESC))
+                .findFirst();
+    }
+
+    @Override
+    public Optional<User> findFirstBySlackTeamIdAndEncryptedSlackBotTokenIsNotNullOrderByUpdatedAtDesc(String slackTeamId) {
+        return queryIndexed("slackTeamId", slackTeamId)
+                .filter(user -> user.getEncryptedSlackBotToken() != null)
+                .sorted(comparator(UPDATED_AT_DESC))
+                .findFirst();
+    }
+
+    @Override
+    public Stream<User> streamAwakeByActiveTrue(LocalDateTime now) {
+        return query(user -> user.isActive() && (user.getDormantUntil() == null || !user.getDormantUntil().isAfter(now)))
+                .sorted(Comparator.comparing(User::getSpotifyUserId, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    @Override
+    public void setDormantUntil(Collection<String> userIds, LocalDateTime dormantUntil) {
+        for (User user : findAllById(userIds)) {
+            user.setDormantUntil(dormantUntil);
+            save(user);
+        }
+    }
+
+    @Override
+    public boolean existsBySlackUserId(String slackUserId) {
+        return existsIndexed("slackUserId", slackUserId);
+    }
+}
@@ -0,0 +1,46 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.repository.UserSettingsRepository;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryUserSettingsRepository extends InMemoryMongoRepository<UserSettings, String>
+        implements UserSettingsRepository {
+
+    public InMemoryUserSettingsRepository() {
+        super(UserSettings.class, UserSettings::getId, UserSettings::setId, () -> new ObjectId().toHexString());
+        index("userId", UserSettings::getUserId);
+    }
+
+    @Override
+    protected void checkUniqueConstraints(UserSettings settings, String id) {
+        requireUnique("userId", settings, id);
+    }
+
+    @Override
+    public Optional<UserSettings> findByUserId(String userId) {
+        return findFirstIndexed("userId", userId);
+    }
+
+    @Override
+    public boolean existsByUserId(String userId) {
+        return existsIndexed("userId", userId);
+    }
+
+    @Override
+    public void deleteByUserId(String userId) {
+        deleteIndexed("userId", userId);
+    }
+
+    @Override
+    public Stream<UserSettings> streamByWorkingHoursEnabledTrue() {
+        return query(UserSettings::isWorkingHoursEnabled);
+    }
+}
@@ -0,0 +1,54 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.UserSyncState;
+import com.trackify.trackify.repository.UserSyncStateRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryUserSyncStateRepository extends InMemoryMongoRepository<UserSyncState, String>
+        implements UserSyncStateRepository {
+
+    public InMemoryUserSyncStateRepository() {
+        super(UserSyncState.class, UserSyncState::getUserId);
+    }
+
+    @Override
+    public void updateCurrentlyPlaying(String userId, String songId, String title, String artist) {
+        upsert(userId, () -> emptyState(userId), state -> {
+            state.setCurrentlyPlayingSongId(songId);
+            state.setCurrentlyPlayingSongTitle(title);
+            state.setCurrentlyPlayingArtist(artist);
+            state.setLastSyncedAt(LocalDateTime.now());
+        });
+    }
+
+    @Override
+    public void clearCurrentlyPlaying(String userId) {
+        upsert(userId, () -> emptyState(userId), state -> {
+            state.setCurrentlyPlayingSongId(null);
+            state.setCurrentlyPlayingSongTitle(null);
+            state.setCurrentlyPlayingArtist(null);
+        });
+    }
+
+    @Override
+    public void updateLastSetStatus(String userId, String statusText) {
+        upsert(userId, () -> emptyState(userId), state -> {
+            state.setLastSetStatusText(statusText);
+            state.setManualStatusSet(false);
+        });
+    }
+
+    @Override
+    public void setManualStatusSet(String userId, boolean manualStatusSet) {
+        upsert(userId, () -> emptyState(userId), state -> state.setManualStatusSet(manualStatusSet));
+    }
+
+    private UserSyncState emptyState(String userId) {
+        return UserSyncState.builder().userId(userId).build();
+    }
+}
@@ -1,17 +1,33 @@
 package com.trackify.trackify.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.gson.Gson;
 import com.slack.api.methods.MethodsClient;
 import com.slack.api.methods.SlackApiException;
 import com.slack.api.methods.request.views.ViewsPublishRequest;
 import com.slack.api.model.view.View;
+import com.slack.api.util.json.GsonFactory;
 import com.trackify.trackify.constants.AppConstants;
+import com.trackify.trackify.model.HomeViewHash;
 import com.trackify.trackify.model.User;
 import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.UserSyncState;
+import com.trackify.trackify.repository.HomeViewHashRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Optional;
 
 import static com.slack.api.model.block.Blocks.*;
@@ -22,6 +38,7 @@ import static com.slack.api.model.view.Views.view;
 /**
  * Service for managing Slack App Home views using Block Kit.
  * Provides UI for users to view status and configure settings.
+ * Publishes are skipped when the rendered view hashes to what was last published for the user.
  */
 @Slf4j
 @Service
@@ -30,27 +47,65 @@ public class AppHomeService {
 
     private final UserService userService;
     private final TimezoneService timezoneService;
+    private final HomeViewHashRepository homeViewHashRepository;
     private final com.slack.api.Slack slack = com.slack.api.Slack.getInstance();
+    private final Gson gson = GsonFactory.createSnakeCase();
+
+    @Value("${trackify.home.view-hash.persist:false}")
+    private boolean persistViewHashes;
+
+    @Value("${trackify.home.view-hash.max-age-ms:3600000}")
+    private long viewHashMaxAgeMs;
+
+    @Value("${trackify.home.view-hash.max-entries:100000}")
+    private long viewHashMaxEntries;
+
+    private Cache<String, PublishedView> publishedViews;
+
+    @PostConstruct
+    public void initPublishedViews() {
+        // Hashes past the max age are never trusted, so there is no point keeping them around
+        publishedViews = Caffeine.newBuilder()
+                .maximumSize(viewHashMaxEntries)
+                .expireAfterWrite(Duration.ofMillis(viewHashMaxAgeMs))
+                .build();
+    }
 
     public void publishHomeView(String slackUserId, String slackAccessToken) {
         try {
-            Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
+            Optional<User> userOpt = userService.findBySlackUserIdForDisplay(slackUserId);
 
             View homeView;
             if (userOpt.isEmpty()) {
                 homeView = buildNotConnectedView();
             } else {
                 User user = userOpt.get();
-                Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
-                homeView = buildConnectedView(user, settingsOpt.orElse(null));
+                Optional<UserSettings> settingsOpt = userService.getUserSettingsForDisplay(user.getId());
+                homeView = buildConnectedView(user, settingsOpt.orElse(null), userService.getSyncStateForDisplay(user.getId()));
+            }
+
+            // Serialize once: the same JSON is hashed and sent, so the client does not serialize again
+            String viewJson = gson.toJson(homeView);
+            String viewHash = hash(viewJson);
+
+            if (viewHash.equals(getPublishedHash(slackUserId))) {
+                log.debug("App Home view unchanged for user {}, skipping publish", slackUserId);
+                return;
             }
 
-            MethodsClient client = slack.methods(slackAccessToken);
-            client.viewsPublish(ViewsPublishRequest.builder()
+            MethodsClient client = methods(slackAccessToken);
+            var response = client.viewsPublish(ViewsPublishRequest.builder()
                     .userId(slackUserId)
-                    .view(homeView)
+                    .viewAsString(viewJson)
                     .build());
 
+            if (!response.isOk()) {
+                log.warn("Failed to publish App Home view for user {}: {}", slackUserId, response.getError());
+                publishedViews.invalidate(slackUserId);
+                return;
+            }
+
+            rememberPublishedHash(slackUserId, viewHash);
             log.debug("Published App Home view for user {}", slackUserId);
 
         } catch (IOException | SlackApiException e) {
@@ -58,6 +113,55 @@ public class AppHomeService {
         }
     }
 
+    private String getPublishedHash(String slackUserId) {
+        PublishedView published = publishedViews.getIfPresent(slackUserId);
+
+        if (published == null && persistViewHashes) {
+            published = homeViewHashRepository.findById(slackUserId)
+                    .filter(stored -> stored.getPublishedAt() != null)
+                    .map(stored -> new PublishedView(stored.getHash(),
+                            stored.getPublishedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()))
+                    .orElse(null);
+            if (published != null) {
+                publishedViews.put(slackUserId, published);
+            }
+        }
+
+        // Re-publish now and then in case the view was replaced on Slack's side (e.g. reinstall)
+        if (published == null || System.currentTimeMillis() - published.publishedAt() > viewHashMaxAgeMs) {
+            return null;
+        }
+        return published.hash();
+    }
+
+    private void rememberPublishedHash(String slackUserId, String viewHash) {
+        publishedViews.put(slackUserId, new PublishedView(viewHash, System.currentTimeMillis()));
+
+        if (persistViewHashes) {
+            homeViewHashRepository.save(HomeViewHash.builder()
+                    .slackUserId(slackUserId)
+                    .hash(viewHash)
+                    .publishedAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private String hash(String viewJson) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(viewJson.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    MethodsClient methods(String slackAccessToken) {
+        return slack.methods(slackAccessToken);
+    }
+
+    private record PublishedView(String hash, long publishedAt) {
+    }
+
     private View buildNotConnectedView() {
         return view(view -> view
                 .type("home")
@@ -86,7 +190,7 @@ public class AppHomeService {
         );
     }
 
-    private View buildConnectedView(User user, UserSettings settings) {
+    private View buildConnectedView(User user, UserSettings settings, UserSyncState syncState) {
         if (settings == null) {
             return buildNotConnectedView();
         }
@@ -100,7 +204,7 @@ public class AppHomeService {
                         header(header -> header.text(plainText(":musical_note: Trackify"))),
                         divider(),
                         buildConnectionStatusSection(spotifyConnected, tokenInvalidated),
-                        buildCurrentPlayingSection(user),
+                        buildCurrentPlayingSection(syncState),
                         divider(),
                         section(section -> section
                                 .text(markdownText("*:gear: Sync Settings*"))
@@ -148,12 +252,12 @@ public class AppHomeService {
         );
     }
 
-    private com.slack.api.model.block.LayoutBlock buildCurrentPlayingSection(User user) {
+    private com.slack.api.model.block.LayoutBlock buildCurrentPlayingSection(UserSyncState syncState) {
         String nowPlayingText;
-        if (user.getCurrentlyPlayingSongTitle() != null) {
+        if (syncState.getCurrentlyPlayingSongTitle() != null) {
             nowPlayingText = String.format("*:headphones: Now Playing*\n\n%s - %s",
-                    user.getCurrentlyPlayingSongTitle(),
-                    user.getCurrentlyPlayingArtist());
+                    syncState.getCurrentlyPlayingSongTitle(),
+                    syncState.getCurrentlyPlayingArtist());
         } else {
             nowPlayingText = "*:headphones: Now Playing*\n\nNothing is playing right now";
         }
@@ -165,6 +269,15 @@ public class AppHomeService {
         String workingHoursText;
 
         if (settings.isWorkingHoursEnabled() &&
+            settings.getWeeklySchedule() != null && !settings.getWeeklySchedule().isEmpty()) {
+
+            workingHoursText = String.format(
+                    "*:clock3: Working Hours*\n\n*Enabled:* Yes\n*Hours:* %s - %s (%s)",
+                    settings.getWeeklySchedule().getFirst().getStart(),
+                    settings.getWeeklySchedule().getFirst().getEnd(),
+                    settings.getTimezoneId() != null ? settings.getTimezoneId() : "your local time"
+            );
+        } else if (settings.isWorkingHoursEnabled() &&
             settings.getSyncStartHour() != null &&
             settings.getSyncEndHour() != null &&
             settings.getTimezoneOffsetSeconds() != null) {
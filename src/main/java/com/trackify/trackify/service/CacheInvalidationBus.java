@@ -0,0 +1,281 @@
+package com.trackify.trackify.service;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.trackify.trackify.model.CacheInvalidation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts local cache evictions to every other instance through Mongo.
+ * Writers publish (cache, key) pairs into a small capped collection; each node follows it with a
+ * tailable cursor (or a change stream on replica sets) and evicts the same keys locally. With the
+ * await timeout below, a remote write is reflected within about a second.
+ * The tailable cursor walks the collection in insertion order and finds its place again by document
+ * identity, never by comparing ObjectIds: those embed each publisher's clock, which may be skewed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheInvalidationBus {
+
+    public static final String ALL_KEYS = "*";
+
+    private static final String COLLECTION = "cache_invalidations";
+    private static final String MODE_CHANGE_STREAM = "change-stream";
+
+    private final ObjectProvider<MongoTemplate> mongoTemplateProvider;
+    private final CacheManager cacheManager;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> evictors = new ConcurrentHashMap<>();
+
+    private MongoTemplate mongoTemplate;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @Value("${trackify.cache.invalidation-bus.enabled:false}")
+    private boolean enabled;
+
+    @Value("${trackify.cache.invalidation-bus.mode:tailable}")
+    private String mode;
+
+    @Value("${trackify.cache.invalidation-bus.capped-size-bytes:1048576}")
+    private long cappedSizeBytes;
+
+    @Value("${trackify.cache.invalidation-bus.max-await-ms:1000}")
+    private long maxAwaitMs;
+
+    @PostConstruct
+    public void start() {
+        mongoTemplate = mongoTemplateProvider.getIfAvailable();
+        if (mongoTemplate == null) {
+            // No Mongo (inmemory profile): a single node has nothing to broadcast to
+            enabled = false;
+        }
+        if (!enabled) {
+            return;
+        }
+
+        if (createCollectionIfMissing()) {
+            // A tailable cursor on an empty capped collection dies immediately, so seed it
+            publish("bootstrap", ALL_KEYS);
+        }
+
+        running = true;
+        ObjectId startAfter = lastDocumentId();
+        listenerThread = Thread.ofVirtual().name("cache-invalidation-bus").start(() -> listen(startAfter));
+        log.info("Cache invalidation bus started (node: {}, mode: {})", nodeId, mode);
+    }
+
+    /**
+     * Registers how a non-Spring cache is evicted when a remote node invalidates one of its keys.
+     * Caches owned by the CacheManager need no registration.
+     */
+    public void register(String cacheName, Consumer<String> evictor) {
+        evictors.put(cacheName, evictor);
+    }
+
+    /**
+     * Tells the other nodes to evict a key. The caller is responsible for its own local eviction.
+     */
+    public void publish(String cacheName, String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+
+        try {
+            mongoTemplate.insert(CacheInvalidation.builder()
+                    .cacheName(cacheName)
+                    .key(key)
+                    .originNodeId(nodeId)
+                    .createdAt(LocalDateTime.now())
+                    .build(), COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish invalidation of {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether this node created the collection. Nodes starting together may race to create it.
+     */
+    private boolean createCollectionIfMissing() {
+        if (mongoTemplate.collectionExists(COLLECTION)) {
+            return false;
+        }
+        try {
+            mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(cappedSizeBytes));
+            return true;
+        } catch (RuntimeException e) {
+            if (mongoTemplate.collectionExists(COLLECTION)) {
+                log.debug("Invalidation collection was created by another node");
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The last document in insertion order, i.e. where a fresh listener starts from.
+     */
+    private ObjectId lastDocumentId() {
+        Document last = mongoTemplate.getCollection(COLLECTION).find()
+                .sort(new Document("$natural", -1))
+                .limit(1)
+                .first();
+        return last != null ? last.getObjectId("_id") : null;
+    }
+
+    private void listen(ObjectId startAfter) {
+        ObjectId lastSeenId = startAfter;
+        BsonDocument resumeToken = null;
+
+        while (running) {
+            try {
+                if (MODE_CHANGE_STREAM.equalsIgnoreCase(mode)) {
+                    resumeToken = followChangeStream(resumeToken);
+                } else {
+                    lastSeenId = followTailableCursor(lastSeenId);
+                }
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener interrupted, reconnecting: {}", e.getMessage());
+                }
+            }
+
+            sleepBeforeReconnect();
+        }
+    }
+
+    /**
+     * Tails the collection from its start in insertion order, skipping everything up to and including
+     * the last document already seen. Returns the last document seen when the cursor dies.
+     */
+    private ObjectId followTailableCursor(ObjectId lastSeenId) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+
+        if (lastSeenId != null && collection.countDocuments(Filters.eq("_id", lastSeenId)) == 0) {
+            // The capped collection wrapped past our position while we were away: some invalidations are lost
+            log.warn("Lost track of cache invalidations, clearing all local caches");
+            evictAllLocally();
+            lastSeenId = lastDocumentId();
+        }
+
+        boolean caughtUp = lastSeenId == null;
+        try (MongoCursor<Document> cursor = collection.find()
+                .cursorType(CursorType.TailableAwait)
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS)
+                .noCursorTimeout(true)
+                .iterator()) {
+            while (running && cursor.hasNext()) {
+                Document document = cursor.next();
+                ObjectId id = document.getObjectId("_id");
+                if (!caughtUp) {
+                    caughtUp = id.equals(lastSeenId);
+                    continue;
+                }
+                lastSeenId = id;
+                apply(document);
+            }
+        }
+        return lastSeenId;
+    }
+
+    private BsonDocument followChangeStream(BsonDocument resumeToken) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+
+        var changeStream = collection.watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))))
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            changeStream = changeStream.resumeAfter(resumeToken);
+        }
+
+        try (var cursor = changeStream.iterator()) {
+            while (running && cursor.hasNext()) {
+                ChangeStreamDocument<Document> change = cursor.next();
+                resumeToken = change.getResumeToken();
+                if (change.getFullDocument() != null) {
+                    apply(change.getFullDocument());
+                }
+            }
+        }
+        return resumeToken;
+    }
+
+    private void apply(Document document) {
+        if (nodeId.equals(document.getString("originNodeId"))) {
+            return;
+        }
+
+        String cacheName = document.getString("cacheName");
+        String key = document.getString("key");
+        log.debug("Remote invalidation of {}:{}", cacheName, key);
+
+        Consumer<String> evictor = evictors.get(cacheName);
+        if (evictor != null) {
+            evictor.accept(key);
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(key)) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    private void evictAllLocally() {
+        evictors.values().forEach(evictor -> evictor.accept(ALL_KEYS));
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null && !evictors.containsKey(cacheName)) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(maxAwaitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+}
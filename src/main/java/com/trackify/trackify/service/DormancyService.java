@@ -0,0 +1,74 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wake-up calendar for users outside their working hours.
+ * A user found out of window is marked dormant until their next window opens (dormantUntil on the
+ * user document), which takes them out of the poll query entirely; the query lets them back in at
+ * that instant, so waking on time needs no write. The marks, indexed for the poll query, are the calendar:
+ * every node reads the same ones, so none keeps its own. A mark is set once per user per day with a
+ * single-field update that bypasses the user cache, and a settings change wakes the user immediately so the next
+ * cycle reschedules them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DormancyService {
+
+    private final UserRepository userRepository;
+    private final WorkingHoursCalendar workingHoursCalendar;
+
+    @Value("${trackify.sync.dormancy.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Takes out-of-window users out of the poll set until their next window opens.
+     * Callers pass bounded batches: every distinct opening time becomes one update listing its users.
+     * A failed update is logged and skipped; its users stay awake and are put to sleep by a later cycle.
+     */
+    public void sleep(Collection<String> userIds) {
+        if (!enabled || userIds.isEmpty()) {
+            return;
+        }
+
+        // Most users share a handful of opening times (09:00 in a few zones), so write one update per instant
+        Map<Instant, List<String>> byWakeup = new HashMap<>();
+        for (String userId : userIds) {
+            Instant wakeAt = workingHoursCalendar.nextWindowOpen(userId);
+            if (wakeAt != null) {
+                byWakeup.computeIfAbsent(wakeAt, key -> new ArrayList<>()).add(userId);
+            }
+        }
+
+        byWakeup.forEach((wakeAt, ids) -> {
+            try {
+                userRepository.setDormantUntil(ids, LocalDateTime.ofInstant(wakeAt, ZoneId.systemDefault()));
+            } catch (RuntimeException e) {
+                log.warn("Could not mark {} out-of-hours users dormant until {}: {}", ids.size(), wakeAt, e.getMessage());
+            }
+        });
+
+        log.debug("{} users dormant until their working hours start", userIds.size());
+    }
+
+    /**
+     * Wakes a user now, e.g. after their working hours changed; the next cycle puts them back to sleep if needed.
+     */
+    public void wake(String userId) {
+        userRepository.setDormantUntil(List.of(userId), null);
+    }
+}
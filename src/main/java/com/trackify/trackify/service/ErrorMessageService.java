@@ -48,6 +48,10 @@ public class ErrorMessageService {
                 """;
     }
 
+    public String buildBusyMessage() {
+        return ":hourglass: Trackify is busy right now. Please try again in a moment.";
+    }
+
     public String buildRateLimitMessage() {
         return """
                 :hourglass: *Too many requests*
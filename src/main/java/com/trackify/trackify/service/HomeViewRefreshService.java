@@ -0,0 +1,118 @@
+package com.trackify.trackify.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Republishes the App Home view when a user's track changes.
+ * Only users who opened the App Home recently are refreshed. Refreshes are debounced per user
+ * (rapid skips collapse into one publish) and capped per workspace so background refreshes
+ * never eat the views.publish budget that interactive clicks need.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HomeViewRefreshService {
+
+    private static final long TEAM_WINDOW_MS = 60_000;
+
+    private final AppHomeService appHomeService;
+    private final ExecutorService publishExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, HomeViewer> recentViewers = new ConcurrentHashMap<>();
+    private final Map<String, Long> pendingRefreshes = new ConcurrentHashMap<>();
+    private final Map<String, TeamBudget> teamBudgets = new ConcurrentHashMap<>();
+
+    @Value("${trackify.home.live-refresh.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trackify.home.live-refresh.recent-window-ms:1800000}")
+    private long recentWindowMs;
+
+    @Value("${trackify.home.live-refresh.debounce-ms:5000}")
+    private long debounceMs;
+
+    @Value("${trackify.home.live-refresh.max-publishes-per-team-per-minute:50}")
+    private int maxPublishesPerTeamPerMinute;
+
+    /**
+     * Records that a user is looking at the App Home, making them eligible for live refreshes.
+     */
+    public void recordHomeOpened(String slackUserId, String teamId, String botToken) {
+        if (slackUserId == null || botToken == null) {
+            return;
+        }
+        recentViewers.put(slackUserId, new HomeViewer(teamId, botToken, System.currentTimeMillis()));
+    }
+
+    /**
+     * Called by the sync engine when the track shown in a user's App Home has changed.
+     */
+    public void onTrackChanged(String slackUserId) {
+        if (!enabled || !recentViewers.containsKey(slackUserId)) {
+            return;
+        }
+
+        // Keep the first due time so a burst of skips ends in a single publish of the latest state
+        pendingRefreshes.putIfAbsent(slackUserId, System.currentTimeMillis() + debounceMs);
+    }
+
+    @Scheduled(fixedDelayString = "${trackify.home.live-refresh.flush-interval-ms:1000}")
+    public void flushPendingRefreshes() {
+        long now = System.currentTimeMillis();
+
+        recentViewers.entrySet().removeIf(entry -> now - entry.getValue().openedAt() > recentWindowMs);
+
+        for (Map.Entry<String, Long> entry : pendingRefreshes.entrySet()) {
+            if (entry.getValue() > now) {
+                continue;
+            }
+
+            String slackUserId = entry.getKey();
+            HomeViewer viewer = recentViewers.get(slackUserId);
+            if (viewer == null) {
+                pendingRefreshes.remove(slackUserId);
+                continue;
+            }
+
+            if (!tryAcquire(viewer.teamId(), now)) {
+                log.debug("views.publish budget exhausted for team {}, deferring refresh for user {}",
+                        viewer.teamId(), slackUserId);
+                continue;
+            }
+
+            pendingRefreshes.remove(slackUserId);
+            publishExecutor.execute(() -> appHomeService.publishHomeView(slackUserId, viewer.botToken()));
+            log.debug("Live App Home refresh for user {}", slackUserId);
+        }
+    }
+
+    private boolean tryAcquire(String teamId, long now) {
+        TeamBudget budget = teamBudgets.compute(teamId == null ? "" : teamId, (key, existing) ->
+                existing == null || now - existing.windowStart() >= TEAM_WINDOW_MS
+                        ? new TeamBudget(now, new AtomicInteger())
+                        : existing);
+        return budget.used().incrementAndGet() <= maxPublishesPerTeamPerMinute;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publishExecutor.shutdownNow();
+    }
+
+    private record HomeViewer(String teamId, String botToken, long openedAt) {
+    }
+
+    private record TeamBudget(long windowStart, AtomicInteger used) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.trackify.trackify.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.slack.api.bolt.model.Bot;
 import com.slack.api.bolt.model.Installer;
 import com.slack.api.bolt.model.builtin.DefaultBot;
@@ -10,23 +13,79 @@ import com.trackify.trackify.model.User;
 import com.trackify.trackify.model.UserSettings;
 import com.trackify.trackify.repository.UserRepository;
 import com.trackify.trackify.repository.UserSettingsRepository;
+import com.trackify.trackify.util.EncryptionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.util.Optional;
 
+/**
+ * Bolt installation store backed by the users collection.
+ * findBot/findInstaller run on every Slack request, so their results are cached in memory and
+ * invalidated by the save/delete methods, here and on the other nodes. Misses are cached only briefly,
+ * so a node that missed an install's invalidation picks it up within seconds.
+ * The caches hold only the encrypted token and metadata; the Bot or Installer handed to Bolt is built
+ * per call with the token taken from the {@link com.trackify.trackify.util.TokenVault}, so no decrypted
+ * Slack token sits on the heap for the cache TTL.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MongoDBInstallationService implements InstallationService {
 
+    private static final String BOT_CACHE = "slackBots";
+    private static final String INSTALLER_CACHE = "slackInstallers";
+
     private final UserRepository userRepository;
     private final UserSettingsRepository userSettingsRepository;
     private final SlackService slackService;
+    private final UserService userService;
+    private final MeterRegistry meterRegistry;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final EncryptionUtil encryptionUtil;
+    private final TimezoneService timezoneService;
+    private final SyncSessionRegistry syncSessionRegistry;
     private boolean historicalDataEnabled = false;
 
+    @Value("${trackify.slack.installation-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${trackify.slack.installation-cache.max-entries:10000}")
+    private long cacheMaxEntries;
+
+    @Value("${trackify.slack.installation-cache.miss-ttl-seconds:5}")
+    private long missTtlSeconds;
+
+    private Cache<String, Optional<InstallationRecord>> botCache;
+    private Cache<String, Optional<InstallationRecord>> installerCache;
+
+    @PostConstruct
+    public void initCaches() {
+        botCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new FoundOrMissExpiry<InstallationRecord>(Duration.ofSeconds(cacheTtlSeconds), Duration.ofSeconds(missTtlSeconds)))
+                .recordStats()
+                .build();
+        installerCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new FoundOrMissExpiry<InstallationRecord>(Duration.ofSeconds(cacheTtlSeconds), Duration.ofSeconds(missTtlSeconds)))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, botCache, BOT_CACHE);
+        CaffeineCacheMetrics.monitor(meterRegistry, installerCache, INSTALLER_CACHE);
+
+        cacheInvalidationBus.register(BOT_CACHE, key -> evictLocally(botCache, key));
+        cacheInvalidationBus.register(INSTALLER_CACHE, key -> evictLocally(installerCache, key));
+    }
+
     @Override
     public boolean isHistoricalDataEnabled() {
         return historicalDataEnabled;
@@ -57,7 +116,7 @@ public class MongoDBInstallationService implements InstallationService {
         if (existingUser.isPresent()) {
             // Update existing user with new Slack token
             user = existingUser.get();
-            user.setSlackAccessToken(installer.getInstallerUserAccessToken());
+            user.setEncryptedSlackAccessToken(encryptionUtil.encrypt(installer.getInstallerUserAccessToken()));
             user.setSlackTeamId(installer.getTeamId());
             user.setUpdatedAt(java.time.LocalDateTime.now());
             log.info("Updating existing user: {}", user.getSlackUserId());
@@ -66,7 +125,7 @@ public class MongoDBInstallationService implements InstallationService {
             user = User.builder()
                     .slackUserId(installer.getInstallerUserId())
                     .slackTeamId(installer.getTeamId())
-                    .slackAccessToken(installer.getInstallerUserAccessToken())
+                    .encryptedSlackAccessToken(encryptionUtil.encrypt(installer.getInstallerUserAccessToken()))
                     .active(true)
                     .createdAt(java.time.LocalDateTime.now())
                     .updatedAt(java.time.LocalDateTime.now())
@@ -75,16 +134,23 @@ public class MongoDBInstallationService implements InstallationService {
         }
 
         User savedUser = userRepository.save(user);
+        userService.evictCachedUser(savedUser.getSlackUserId());
+        invalidateInstallation(installer.getTeamId(), installer.getInstallerUserId());
         log.info("=== USER SAVED TO MONGODB === ID: {}, SlackUserId: {}",
                 savedUser.getId(), savedUser.getSlackUserId());
 
         // Create default UserSettings for new users
         if (existingUser.isEmpty()) {
-            // Fetch user's timezone from Slack
-            Integer timezoneOffset = slackService.getUserTimezoneOffset(
+            // Fetch user's timezone from Slack; the IANA zone keeps working hours right across DST
+            String timezoneId = slackService.getUserTimezoneId(
                     installer.getInstallerUserAccessToken(),
                     installer.getInstallerUserId()
             );
+            Integer timezoneOffset = timezoneId != null
+                    ? timezoneService.currentOffsetSeconds(timezoneId)
+                    : slackService.getUserTimezoneOffset(
+                            installer.getInstallerUserAccessToken(),
+                            installer.getInstallerUserId());
 
             UserSettings defaultSettings = UserSettings.builder()
                     .userId(savedUser.getId())
@@ -95,12 +161,14 @@ public class MongoDBInstallationService implements InstallationService {
                     .showSongTitle(true)
                     .statusTemplate("{title} - {artist}")
                     .timezoneOffsetSeconds(timezoneOffset)
+                    .timezoneId(timezoneId)
                     .workingHoursEnabled(false) // Sync 24/7 by default
                     .createdAt(java.time.LocalDateTime.now())
                     .updatedAt(java.time.LocalDateTime.now())
                     .build();
 
             UserSettings savedSettings = userSettingsRepository.save(defaultSettings);
+            userService.evictCachedSettings(savedUser.getId());
             log.info("=== DEFAULT USER SETTINGS CREATED === ID: {}, UserId: {}, Timezone: {}",
                     savedSettings.getId(), savedSettings.getUserId(), timezoneOffset);
         }
@@ -125,8 +193,8 @@ public class MongoDBInstallationService implements InstallationService {
             throw new IllegalArgumentException("Bot teamId cannot be null");
         }
 
-        // Find user by team ID and update with bot token
-        Optional<User> userOpt = userRepository.findBySlackTeamId(bot.getTeamId());
+        // Find the most recently installed user of the team and update with bot token
+        Optional<User> userOpt = userRepository.findFirstBySlackTeamIdOrderByUpdatedAtDesc(bot.getTeamId());
 
         if (userOpt.isEmpty()) {
             log.error("No user found for teamId: {} - cannot save bot token", bot.getTeamId());
@@ -134,10 +202,13 @@ public class MongoDBInstallationService implements InstallationService {
         }
 
         User user = userOpt.get();
-        user.setSlackBotToken(bot.getBotAccessToken());
+        user.setEncryptedSlackBotToken(encryptionUtil.encrypt(bot.getBotAccessToken()));
         user.setUpdatedAt(java.time.LocalDateTime.now());
 
         userRepository.save(user);
+        userService.evictCachedUser(user.getSlackUserId());
+        botCache.invalidate(botKey(bot.getEnterpriseId(), bot.getTeamId()));
+        cacheInvalidationBus.publish(BOT_CACHE, botKey(bot.getEnterpriseId(), bot.getTeamId()));
         log.info("=== BOT TOKEN SAVED === UserId: {}, TeamId: {}",
                 user.getId(), user.getSlackTeamId());
     }
@@ -146,7 +217,8 @@ public class MongoDBInstallationService implements InstallationService {
     public void deleteBot(Bot bot) throws Exception {
         if (bot != null && bot.getEnterpriseId() != null) {
             userRepository.findBySlackTeamId(bot.getEnterpriseId())
-                    .ifPresent(userRepository::delete);
+                    .ifPresent(this::deleteUser);
+            invalidateAll();
         }
     }
 
@@ -154,35 +226,46 @@ public class MongoDBInstallationService implements InstallationService {
     public void deleteInstaller(Installer installer) throws Exception {
         if (installer != null && installer.getEnterpriseId() != null) {
             userRepository.findBySlackTeamId(installer.getEnterpriseId())
-                    .ifPresent(userRepository::delete);
+                    .ifPresent(this::deleteUser);
+            invalidateAll();
         }
     }
 
     @Override
     public Bot findBot(String enterpriseId, String teamId) {
         log.debug("Finding bot for enterpriseId: {}, teamId: {}", enterpriseId, teamId);
+        return botCache.get(botKey(enterpriseId, teamId), key -> loadBot(enterpriseId, teamId))
+                .map(record -> toBot(enterpriseId, teamId, record))
+                .orElse(null);
+    }
 
-        Optional<User> userOpt = userRepository.findBySlackTeamId(teamId);
+    private Optional<InstallationRecord> loadBot(String enterpriseId, String teamId) {
+        if (teamId == null) {
+            // Org-wide installs: bots are only ever saved per team
+            log.warn("No team in bot lookup for enterpriseId: {}", enterpriseId);
+            return Optional.empty();
+        }
+
+        // Always the primary: a lagging secondary could hand out a token that was just rotated or revoked
+        Optional<User> userOpt = userRepository.findFirstBySlackTeamIdAndEncryptedSlackBotTokenIsNotNullOrderByUpdatedAtDesc(teamId);
 
         if (userOpt.isEmpty()) {
             log.warn("No installation found for teamId: {}", teamId);
-            return null;
+            return Optional.empty();
         }
 
-        User user = userOpt.get();
+        log.debug("Loaded bot installation for teamId: {}", teamId);
+        return Optional.of(InstallationRecord.of(userOpt.get(), userOpt.get().getEncryptedSlackBotToken()));
+    }
 
-        // Create Bot object with actual bot token
+    private Bot toBot(String enterpriseId, String teamId, InstallationRecord record) {
         DefaultBot bot = new DefaultBot();
         bot.setEnterpriseId(enterpriseId);
         bot.setTeamId(teamId);
         bot.setScope("commands,app_mentions:read,chat:write");
-        bot.setBotAccessToken(user.getSlackBotToken()); // Use actual bot token for App Home
-        bot.setBotUserId(user.getSlackUserId());
-        bot.setInstalledAt(user.getCreatedAt() != null ?
-            user.getCreatedAt().atZone(ZoneId.systemDefault()).toEpochSecond() : null);
-
-        log.info("Found bot installation for teamId: {}, bot token present: {}",
-                teamId, user.getSlackBotToken() != null);
+        bot.setBotAccessToken(userService.revealSlackBotToken(record.userId(), record.encryptedToken())); // Use actual bot token for App Home
+        bot.setBotUserId(record.slackUserId());
+        bot.setInstalledAt(record.installedAt());
         return bot;
     }
 
@@ -190,32 +273,79 @@ public class MongoDBInstallationService implements InstallationService {
     public Installer findInstaller(String enterpriseId, String teamId, String userId) {
         log.debug("Finding installer for enterpriseId: {}, teamId: {}, userId: {}",
             enterpriseId, teamId, userId);
+        return installerCache.get(installerKey(teamId, userId), key -> loadInstaller(teamId, userId))
+                .map(record -> toInstaller(enterpriseId, teamId, record))
+                .orElse(null);
+    }
 
+    private Optional<InstallationRecord> loadInstaller(String teamId, String userId) {
         Optional<User> userOpt = userId != null ?
             userRepository.findBySlackUserId(userId) :
-            userRepository.findBySlackTeamId(teamId);
+            userRepository.findFirstBySlackTeamIdOrderByUpdatedAtDesc(teamId);
 
         if (userOpt.isEmpty()) {
             log.warn("No installer found for userId: {} or teamId: {}", userId, teamId);
-            return null;
+            return Optional.empty();
         }
 
-        User user = userOpt.get();
+        log.debug("Loaded installer for userId: {}", userId);
+        return Optional.of(InstallationRecord.of(userOpt.get(), userOpt.get().getEncryptedSlackAccessToken()));
+    }
 
-        // Create Installer object
+    private Installer toInstaller(String enterpriseId, String teamId, InstallationRecord record) {
         DefaultInstaller installer = new DefaultInstaller();
         installer.setEnterpriseId(enterpriseId);
         installer.setTeamId(teamId);
-        installer.setInstallerUserId(user.getSlackUserId());
-        installer.setScope("users.profile:write,users.profile:read");
-        installer.setInstallerUserAccessToken(user.getSlackAccessToken());
-        installer.setInstalledAt(user.getCreatedAt() != null ?
-            user.getCreatedAt().atZone(ZoneId.systemDefault()).toEpochSecond() : null);
-
-        log.info("Found installer for userId: {}", userId);
+        installer.setInstallerUserId(record.slackUserId());
+        installer.setScope("users.profile:write,users.profile:read,users:read");
+        installer.setInstallerUserAccessToken(userService.revealSlackAccessToken(record.userId(), record.encryptedToken()));
+        installer.setInstalledAt(record.installedAt());
         return installer;
     }
 
+    private void deleteUser(User user) {
+        userRepository.delete(user);
+        userService.evictCachedUser(user.getSlackUserId());
+        syncSessionRegistry.remove(user.getId());
+    }
+
+    /**
+     * Caffeine rejects null keys, and org-wide or Enterprise Grid requests may come without a team.
+     */
+    private String botKey(String enterpriseId, String teamId) {
+        return teamId != null ? "team:" + teamId : "enterprise:" + enterpriseId;
+    }
+
+    private String installerKey(String teamId, String userId) {
+        return userId != null ? "user:" + userId : "team:" + teamId;
+    }
+
+    private void invalidateInstallation(String teamId, String userId) {
+        botCache.invalidate(botKey(null, teamId));
+        installerCache.invalidate(installerKey(teamId, userId));
+        installerCache.invalidate(installerKey(teamId, null));
+
+        cacheInvalidationBus.publish(BOT_CACHE, botKey(null, teamId));
+        cacheInvalidationBus.publish(INSTALLER_CACHE, installerKey(teamId, userId));
+        cacheInvalidationBus.publish(INSTALLER_CACHE, installerKey(teamId, null));
+    }
+
+    private void invalidateAll() {
+        botCache.invalidateAll();
+        installerCache.invalidateAll();
+
+        cacheInvalidationBus.publish(BOT_CACHE, CacheInvalidationBus.ALL_KEYS);
+        cacheInvalidationBus.publish(INSTALLER_CACHE, CacheInvalidationBus.ALL_KEYS);
+    }
+
+    private void evictLocally(Cache<String, ?> cache, String key) {
+        if (CacheInvalidationBus.ALL_KEYS.equals(key)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
     /**
      * Helper method to find MongoDB User ID by Slack User ID
      * Used after OAuth completion to link Spotify account
@@ -224,4 +354,36 @@ public class MongoDBInstallationService implements InstallationService {
         Optional<User> userOpt = userRepository.findBySlackUserId(slackUserId);
         return userOpt.map(User::getId).orElse(null);
     }
+
+    /**
+     * What the installation caches keep: enough to rebuild a Bot or Installer, with the token still encrypted.
+     */
+    private record InstallationRecord(String userId, String slackUserId, String encryptedToken, Long installedAt) {
+
+        static InstallationRecord of(User user, String encryptedToken) {
+            return new InstallationRecord(user.getId(), user.getSlackUserId(), encryptedToken,
+                    user.getCreatedAt() != null ? user.getCreatedAt().atZone(ZoneId.systemDefault()).toEpochSecond() : null);
+        }
+    }
+
+    /**
+     * Installations found are kept for the full TTL, misses only for the short one.
+     */
+    private record FoundOrMissExpiry<T>(Duration foundTtl, Duration missTtl) implements Expiry<String, Optional<T>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<T> value, long currentTime) {
+            return (value.isPresent() ? foundTtl : missTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<T> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<T> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -3,21 +3,46 @@ package com.trackify.trackify.service;
 import com.slack.api.bolt.service.OAuthStateService;
 import com.trackify.trackify.model.OAuthState;
 import com.trackify.trackify.repository.OAuthStateRepository;
+import com.trackify.trackify.util.OAuthStateSigner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 
+/**
+ * OAuth state store for the Slack install flow.
+ * By default states are HMAC-signed tokens verified without touching Mongo, with single use
+ * enforced in memory: the state is consumed by the one check Bolt makes on the callback. Setting trackify.oauth.state.store=mongo restores the oauth_states collection.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MongoDBOAuthStateService implements OAuthStateService {
 
+    private static final String SLACK_INSTALL_SUBJECT = "slack-install";
+
     private final OAuthStateRepository oauthStateRepository;
+    private final OAuthStateSigner stateSigner;
+
+    @Value("${trackify.oauth.state.store:signed}")
+    private String store;
+
+    @Override
+    public String generateNewStateValue() {
+        if (isSigned()) {
+            return stateSigner.issue(SLACK_INSTALL_SUBJECT);
+        }
+        return OAuthStateService.super.generateNewStateValue();
+    }
 
     @Override
     public void addNewStateToDatastore(String state) throws Exception {
+        if (isSigned()) {
+            return; // The token carries its own expiry and signature
+        }
+
         LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(10);
 
         OAuthState oauthState = OAuthState.builder()
@@ -31,7 +56,9 @@ public class MongoDBOAuthStateService implements OAuthStateService {
 
     @Override
     public boolean isAvailableInDatabase(String state) {
-        boolean exists = oauthStateRepository.existsByState(state);
+        boolean exists = isSigned()
+                ? stateSigner.consume(state).filter(SLACK_INSTALL_SUBJECT::equals).isPresent()
+                : oauthStateRepository.existsByState(state);
         if (!exists) {
             log.warn("OAuth state not found or expired: {}", state);
         }
@@ -40,6 +67,13 @@ public class MongoDBOAuthStateService implements OAuthStateService {
 
     @Override
     public void deleteStateFromDatastore(String state) throws Exception {
+        if (isSigned()) {
+            return; // Already consumed when it was checked
+        }
         oauthStateRepository.deleteByState(state);
     }
+
+    private boolean isSigned() {
+        return !"mongo".equalsIgnoreCase(store);
+    }
 }
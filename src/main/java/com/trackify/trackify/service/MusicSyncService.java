@@ -1,52 +1,246 @@
 package com.trackify.trackify.service;
 
 import com.trackify.trackify.constants.AppConstants;
+import com.trackify.trackify.exception.SpotifyException;
 import com.trackify.trackify.model.CurrentlyPlayingTrackInfo;
+import com.trackify.trackify.model.SyncSession;
+import com.trackify.trackify.model.SyncSession.StatusPhase;
 import com.trackify.trackify.model.User;
+import com.trackify.trackify.model.UserSyncState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MusicSyncService {
 
+    // Sentinel telling a worker the roster is exhausted
+    private static final PollTarget END_OF_ROSTER = new PollTarget(new User(), null, 0);
+    private static final int MAX_HIBERNATION_DEPTH = 16;
+    private static final String SYNC_OPERATION = "sync";
+    // Not coalesced with scheduled syncs, which may be waiting to reuse a read shared by another identity
+    private static final String MANUAL_SYNC_OPERATION = "manual-sync";
+
     private final UserService userService;
     private final SpotifyService spotifyService;
     private final SlackService slackService;
-    private final TimezoneService timezoneService;
+    private final WorkingHoursCalendar workingHoursCalendar;
+    private final DormancyService dormancyService;
+    private final SlackPresenceGate slackPresenceGate;
+    private final HomeViewRefreshService homeViewRefreshService;
+    private final SyncSessionRegistry syncSessionRegistry;
+    private final UserMailboxes userMailboxes;
+    private final MeterRegistry meterRegistry;
+
+    private Counter avoidedStatusReads;
+    private Counter avoidedStatusWrites;
+    private Counter sharedAccountReads;
 
     @Value("${trackify.sync.polling-interval:10000}")
     private long pollingIntervalMs;
 
+    @Value("${trackify.sync.workers:8}")
+    private int workerCount;
+
+    @Value("${trackify.sync.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${trackify.sync.roster-page-size:200}")
+    private int rosterPageSize;
+
+    @Value("${trackify.sync.dormancy.batch-size:1000}")
+    private int dormancyBatchSize;
+
     @Value("${trackify.sync.expiration-overhead-ms:120000}")
     private long expirationOverheadMs;
 
+    // When enabled, pauses and song ends are left to Slack's status_expiration instead of explicit clears
+    @Value("${trackify.sync.expiration-clearing.enabled:false}")
+    private boolean expirationClearingEnabled;
+
+    @Value("${trackify.sync.expiration-clearing.grace-period-ms:300000}")
+    private long clearGracePeriodMs;
+
+    @Value("${trackify.sync.parallel-reads.enabled:true}")
+    private boolean parallelReadsEnabled;
+
+    @Value("${trackify.sync.parallel-reads.deadline-ms:8000}")
+    private long readDeadlineMs;
+
+    @Value("${trackify.sync.hibernation.enabled:true}")
+    private boolean hibernationEnabled;
+
+    @Value("${trackify.sync.hibernation.idle-polls-before-backoff:6}")
+    private int idlePollsBeforeBackoff;
+
+    @Value("${trackify.sync.hibernation.max-interval-ms:600000}")
+    private long maxHibernationIntervalMs;
+
+    @PostConstruct
+    public void registerMetrics() {
+        avoidedStatusReads = Counter.builder("trackify.sync.slack.avoided")
+                .description("Slack calls the sync skipped because no status write followed")
+                .tag("call", "users.profile.get")
+                .register(meterRegistry);
+        avoidedStatusWrites = Counter.builder("trackify.sync.slack.avoided")
+                .description("Slack calls the sync skipped because no status write followed")
+                .tag("call", "users.profile.set")
+                .register(meterRegistry);
+        sharedAccountReads = Counter.builder("trackify.sync.spotify.shared-reads")
+                .description("Playback reads reused by another Slack identity of the same Spotify account")
+                .register(meterRegistry);
+    }
+
     @Scheduled(fixedDelayString = "${trackify.sync.polling-interval}")
     public void syncMusicStatus() {
         log.debug("Starting music status sync cycle");
+        Instant now = Instant.now();
+        workingHoursCalendar.advance(now);
+
+        // The roster is streamed from a cursor into a bounded queue, so heap use does not grow
+        // with the number of active users: the producer blocks whenever the workers fall behind
+        BlockingQueue<PollTarget> queue = new ArrayBlockingQueue<>(queueCapacity);
+        // One playback read per Spotify account this cycle, shared by every Slack identity linked to it
+        Map<String, SharedRead> polledAccounts = new ConcurrentHashMap<>();
+        AtomicInteger synced = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("music-sync-" + i).start(() -> drain(queue, synced, polledAccounts)));
+        }
+
+        // Dormant users are not even read. Anyone else found out of window is dropped with a set lookup,
+        // before any settings read or API call, and goes dormant until their window opens, a batch at a time
+        List<String> outOfWindow = new ArrayList<>(dormancyBatchSize);
+        List<User> page = new ArrayList<>(rosterPageSize);
+        long nowMillis = now.toEpochMilli();
+        try (Stream<User> activeUsers = userService.streamPollableUsers(LocalDateTime.ofInstant(now, ZoneId.systemDefault()))) {
+            activeUsers.forEach(user -> {
+                if (!workingHoursCalendar.isInWindow(user.getId())) {
+                    outOfWindow.add(user.getId());
+                    if (outOfWindow.size() >= dormancyBatchSize) {
+                        dormancyService.sleep(outOfWindow);
+                        outOfWindow.clear();
+                    }
+                } else if (syncSessionRegistry.get(user.getId()).isPollDue(nowMillis)
+                        && slackPresenceGate.shouldPoll(user)) {
+                    page.add(user);
+                    if (page.size() >= rosterPageSize) {
+                        enqueuePage(queue, page);
+                        page.clear();
+                    }
+                }
+            });
+            enqueuePage(queue, page);
+            dormancyService.sleep(outOfWindow);
+        } catch (RuntimeException e) {
+            log.error("Error streaming active users, cycle cut short", e);
+        } finally {
+            for (int i = 0; i < workerCount; i++) {
+                enqueue(queue, END_OF_ROSTER);
+            }
+            awaitWorkers(workers);
+        }
 
-        List<User> activeUsers = userService.findAllActiveUsers();
-        log.debug("Found {} active users to sync", activeUsers.size());
+        log.debug("Completed music status sync cycle ({} users)", synced.get());
+    }
 
-        for (User user : activeUsers) {
-            try {
-                syncUserMusicStatus(user);
-            } catch (Exception e) {
-                log.error("Error syncing music status for user {}", user.getSlackUserId(), e);
-                // Continue with next user even if this one fails
+    /**
+     * Loads the sync state of a page of the roster in one query and hands the page to the workers.
+     */
+    private void enqueuePage(BlockingQueue<PollTarget> queue, List<User> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+
+        long loadedAt = System.currentTimeMillis();
+        Map<String, UserSyncState> syncStates = userService.getSyncStates(page.stream().map(User::getId).toList());
+        for (User user : page) {
+            enqueue(queue, new PollTarget(user, syncStates.get(user.getId()), loadedAt));
+        }
+    }
+
+    private void enqueue(BlockingQueue<PollTarget> queue, PollTarget target) {
+        try {
+            queue.put(target);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing users for sync", e);
+        }
+    }
+
+    private void drain(BlockingQueue<PollTarget> queue, AtomicInteger synced,
+                       Map<String, SharedRead> polledAccounts) {
+        try {
+            for (PollTarget target = queue.take(); target != END_OF_ROSTER; target = queue.take()) {
+                try {
+                    syncInMailbox(SYNC_OPERATION, target, polledAccounts);
+                    synced.incrementAndGet();
+                } catch (Exception e) {
+                    log.error("Error syncing music status for user {}", target.user().getSlackUserId(), e);
+                    // Continue with next user even if this one fails
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+    }
 
-        log.debug("Completed music status sync cycle");
+    private void awaitWorkers(List<Thread> workers) {
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            workers.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void syncUserMusicStatus(User user) {
+    /**
+     * Runs the sync in the user's mailbox, joining one already queued there rather than adding another.
+     */
+    private void syncInMailbox(String operation, PollTarget target, Map<String, SharedRead> polledAccounts) {
+        String userId = target.user().getId();
+        userMailboxes.callCoalescing(userId, operation, () -> {
+            try {
+                syncUserMusicStatus(target, polledAccounts);
+            } finally {
+                syncSessionRegistry.get(userId).setLastSyncFinishedAt(System.currentTimeMillis());
+            }
+            return null;
+        });
+    }
+
+    private void syncUserMusicStatus(PollTarget target, Map<String, SharedRead> polledAccounts) {
+        User user = target.user();
         if (user.getEncryptedSpotifyAccessToken() == null) {
             log.debug("User {} has no Spotify token, skipping sync", user.getSlackUserId());
             return;
@@ -58,105 +252,363 @@ public class MusicSyncService {
             return;
         }
 
-        if (!isWithinWorkingHours(user)) {
+        if (!workingHoursCalendar.isInWindow(user.getId())) {
             log.debug("User {} is outside working hours, skipping sync", user.getSlackUserId());
             return;
         }
 
-        CurrentlyPlayingTrackInfo currentTrack = spotifyService.getCurrentlyPlayingTrack(user);
+        SyncSession session = syncSessionRegistry.get(user.getId());
+        UserSyncState syncState = syncStateFor(target, session);
+        SyncReads reads;
+        try {
+            reads = fetchReads(user, syncState, session, polledAccounts);
+        } catch (SpotifyException e) {
+            // A failed read says nothing about playback: leave the status alone until a later poll
+            log.debug("Spotify read failed for user {}, skipping this cycle: {}", user.getSlackUserId(), e.getMessage());
+            return;
+        }
+        if (reads == null) {
+            return;
+        }
+        CurrentlyPlayingTrackInfo currentTrack = reads.track();
+        recordPoll(user, session, (currentTrack == null || !currentTrack.isPlaying())
+                && syncState.getCurrentlyPlayingSongId() == null);
 
         if (currentTrack == null || !currentTrack.isPlaying()) {
-            handleNoTrackPlaying(user);
+            handleNoTrackPlaying(user, syncState, session, reads);
             return;
         }
 
         if (!isDeviceAllowed(user, currentTrack.getDeviceId())) {
             log.debug("User {} is playing on non-tracked device '{}', skipping sync",
                     user.getSlackUserId(), currentTrack.getDeviceName());
-            handleNoTrackPlaying(user);
+            handleNoTrackPlaying(user, syncState, session, reads);
             return;
         }
 
-        boolean trackChanged = hasTrackChanged(user, currentTrack);
-        boolean needsExpirationRefresh = shouldRefreshExpiration(currentTrack);
-        boolean shouldUpdateStatus = trackChanged || needsExpirationRefresh;
+        if (session.getPlaybackStoppedAt() != null) {
+            log.debug("Playback resumed for user {} within the clear grace period", user.getSlackUserId());
+            session.setPlaybackStoppedAt(null);
+        }
 
-        if (!user.isManualStatusSet() && slackService.hasManualStatusChange(user)) {
-            log.info("User {} has manually changed their status, pausing automatic updates", user.getSlackUserId());
-            userService.setManualStatusFlag(user.getId(), true);
+        long now = System.currentTimeMillis();
+        boolean trackChanged = hasTrackChanged(syncState, currentTrack);
+        session.setTrackEndsAt(expectedEnd(currentTrack, now));
+        StatusWrite write = nextWrite(session, syncState, currentTrack, trackChanged, now);
+
+        if (write == StatusWrite.NONE) {
+            countAvoidedCalls(syncState, currentTrack, reads);
+            log.debug("Same track playing for user {}, status still valid - skipping update", user.getSlackUserId());
             return;
         }
 
-        if (user.isManualStatusSet()) {
+        // The Slack status is only read when we are about to overwrite it
+        if (write != StatusWrite.RESUME
+                && hasManualStatusChange(user, syncState, session.hasStatusExpired(now), reads)) {
+            log.info("User {} has manually changed their status, pausing automatic updates", user.getSlackUserId());
+            userService.setManualStatusFlag(user.getId(), true);
+            session.setStatusPhase(StatusPhase.MANUAL);
             if (trackChanged) {
-                log.info("Track changed for user {} while manual status was set, resuming automatic updates",
-                        user.getSlackUserId());
-                userService.setManualStatusFlag(user.getId(), false);
-            } else {
-                log.debug("User {} has manual status set, skipping automatic update", user.getSlackUserId());
-                return;
+                // Recorded so that automatic updates resume on the next track, not this one
+                recordTrackChange(user, currentTrack);
             }
+            return;
+        }
+
+        if (write == StatusWrite.RESUME) {
+            log.info("Track changed for user {} while manual status was set, resuming automatic updates",
+                    user.getSlackUserId());
+            userService.setManualStatusFlag(user.getId(), false);
         }
 
         if (trackChanged) {
-            log.info("Track changed for user {}: {} - {}",
-                    user.getSlackUserId(),
-                    currentTrack.getTrackName(),
-                    currentTrack.getArtistName());
-
-            userService.updateCurrentlyPlaying(
-                    user.getId(),
-                    currentTrack.getTrackId(),
-                    currentTrack.getTrackName(),
-                    currentTrack.getArtistName()
-            );
-        }
-
-        if (shouldUpdateStatus) {
-            if (needsExpirationRefresh && !trackChanged) {
-                log.debug("Same track playing for user {}, but expiration approaching - refreshing status", user.getSlackUserId());
-            }
+            recordTrackChange(user, currentTrack);
+        }
 
-            slackService.updateUserStatus(
-                    user,
-                    currentTrack.getTrackName(),
-                    currentTrack.getArtistName(),
-                    currentTrack.getDurationMs(),
-                    currentTrack.getProgressMs()
-            );
-        } else {
-            log.debug("Same track playing for user {}, expiration still valid - skipping update", user.getSlackUserId());
+        if (write == StatusWrite.REFRESH) {
+            log.debug("Track for user {} will outlast its status, refreshing expiration", user.getSlackUserId());
         }
+
+        Long statusExpiration = slackService.updateUserStatus(
+                user,
+                currentTrack.getTrackName(),
+                currentTrack.getArtistName(),
+                currentTrack.getDurationMs(),
+                currentTrack.getProgressMs()
+        );
+        session.setStatusExpiresAt(statusExpiration);
+        session.setStatusTrackId(currentTrack.getTrackId());
+        session.setStatusPhase(write == StatusWrite.REFRESH ? StatusPhase.REFRESHED : StatusPhase.SHOWING);
     }
 
-    private boolean shouldRefreshExpiration(CurrentlyPlayingTrackInfo currentTrack) {
+    /**
+     * The transition for a poll that found a track playing on an allowed device.
+     * A track's status is written once, its expiration is refreshed at most once, and only if the track
+     * will still be playing when the status expires (it was paused or seeked back). Anything else is a no-op.
+     */
+    private StatusWrite nextWrite(SyncSession session, UserSyncState syncState, CurrentlyPlayingTrackInfo currentTrack,
+                                  boolean trackChanged, long now) {
+        if (syncState.isManualStatusSet()) {
+            return trackChanged ? StatusWrite.RESUME : StatusWrite.NONE;
+        }
+
+        return switch (session.getStatusPhase()) {
+            case UNKNOWN, MANUAL, CLEARED -> StatusWrite.SET;
+            case SHOWING, REFRESHED -> {
+                if (trackChanged
+                        || !Objects.equals(session.getStatusTrackId(), currentTrack.getTrackId())
+                        || session.hasStatusExpired(now)) {
+                    yield StatusWrite.SET;
+                }
+                yield session.getStatusPhase() == StatusPhase.SHOWING && outlivesStatus(session)
+                        ? StatusWrite.REFRESH
+                        : StatusWrite.NONE;
+            }
+        };
+    }
+
+    private boolean outlivesStatus(SyncSession session) {
+        return session.getStatusExpiresAt() != null
+                && session.getTrackEndsAt() != null
+                && session.getTrackEndsAt() + pollingIntervalMs > session.getStatusExpiresAt() * 1000;
+    }
+
+    private Long expectedEnd(CurrentlyPlayingTrackInfo currentTrack, long now) {
         if (currentTrack.getDurationMs() == null || currentTrack.getProgressMs() == null) {
-            return true;
+            return null;
         }
+        return now + currentTrack.getDurationMs() - currentTrack.getProgressMs();
+    }
 
-        long remainingMs = currentTrack.getDurationMs() - currentTrack.getProgressMs();
-        long refreshThresholdMs = (pollingIntervalMs * 3) + expirationOverheadMs;
+    /**
+     * Counts the calls the previous every-poll logic would have made here: a status read on every poll,
+     * and a status write on every poll in the last stretch of the track.
+     */
+    private void countAvoidedCalls(UserSyncState syncState, CurrentlyPlayingTrackInfo currentTrack, SyncReads reads) {
+        if (syncState.isManualStatusSet()) {
+            return;
+        }
 
-        boolean shouldRefresh = remainingMs <= refreshThresholdMs;
+        if (!reads.statusFetched()) {
+            avoidedStatusReads.increment();
+        }
+        if (currentTrack.getDurationMs() == null || currentTrack.getProgressMs() == null
+                || currentTrack.getDurationMs() - currentTrack.getProgressMs()
+                        <= pollingIntervalMs * 3 + expirationOverheadMs) {
+            avoidedStatusWrites.increment();
+        }
+    }
+
+    private void recordTrackChange(User user, CurrentlyPlayingTrackInfo currentTrack) {
+        log.info("Track changed for user {}: {} - {}",
+                user.getSlackUserId(),
+                currentTrack.getTrackName(),
+                currentTrack.getArtistName());
+
+        userService.updateCurrentlyPlaying(
+                user.getId(),
+                currentTrack.getTrackId(),
+                currentTrack.getTrackName(),
+                currentTrack.getArtistName()
+        );
+        homeViewRefreshService.onTrackChanged(user.getSlackUserId());
+    }
 
-        if (shouldRefresh) {
-            log.debug("Expiration refresh needed: remaining={}s, threshold={}s",
-                    remainingMs / 1000, refreshThresholdMs / 1000);
+    /**
+     * Reads the playing track and, when the user was already playing and a status write is likely this
+     * poll (so the manual-status check is next), their current Slack status at the same time. Both reads
+     * share one deadline, and a failure of either cancels the other. Otherwise only Spotify is read, as
+     * the status may never be needed. Returns null when the reads miss the deadline.
+     */
+    private SyncReads fetchReads(User user, UserSyncState syncState, SyncSession session,
+                                 Map<String, SharedRead> polledAccounts) {
+        if (!parallelReadsEnabled || syncState.isManualStatusSet() || syncState.getCurrentlyPlayingSongId() == null
+                || !session.isWriteExpected(System.currentTimeMillis())) {
+            return new SyncReads(readPlayback(user, polledAccounts), false, null);
         }
 
-        return shouldRefresh;
+        try (var scope = StructuredTaskScope.open(Joiner.awaitAllSuccessfulOrThrow(),
+                config -> config.withTimeout(Duration.ofMillis(readDeadlineMs)))) {
+            Subtask<CurrentlyPlayingTrackInfo> track = scope.fork(() -> readPlayback(user, polledAccounts));
+            Subtask<String> slackStatus = scope.fork(() -> slackService.getCurrentStatusText(user));
+            scope.join();
+            return new SyncReads(track.get(), true, slackStatus.get());
+        } catch (StructuredTaskScope.TimeoutException e) {
+            // Like a shared read that outlasts the deadline: nothing is known, so nothing is written this cycle
+            log.warn("Sync reads for user {} missed the {}ms deadline, skipping this cycle", user.getSlackUserId(), readDeadlineMs);
+            return null;
+        } catch (StructuredTaskScope.FailedException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Sync reads failed for user " + user.getSlackUserId(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading sync state", e);
+        }
     }
 
-    private void handleNoTrackPlaying(User user) {
-        if (user.getCurrentlyPlayingSongId() != null) {
-            log.info("No track playing for user {}, clearing status", user.getSlackUserId());
-            slackService.clearUserStatus(user);
-            userService.clearCurrentlyPlaying(user.getId());
+    /**
+     * Reads the user's playback, or reuses the read another Slack identity of the same Spotify account
+     * started this cycle. The roster is sorted by account, so linked identities reach the workers back to
+     * back and find each other's read still fresh. Each identity then applies the result with its own
+     * settings. A shared read that fails or outlasts the read deadline is not passed on: the waiting
+     * identities read with their own token instead. A failed read throws rather than passing for "nothing playing".
+     */
+    private CurrentlyPlayingTrackInfo readPlayback(User user, Map<String, SharedRead> polledAccounts) {
+        String accountId = user.getSpotifyUserId();
+        if (polledAccounts == null || !SpotifyService.isResolvedSpotifyUserId(accountId)) {
+            return spotifyService.readCurrentlyPlayingTrack(user);
         }
+
+        long now = System.currentTimeMillis();
+        SharedRead mine = new SharedRead(new CompletableFuture<>(), now);
+        SharedRead shared = polledAccounts.putIfAbsent(accountId, mine);
+        if (shared == null) {
+            try {
+                CurrentlyPlayingTrackInfo track = spotifyService.readCurrentlyPlayingTrack(user);
+                mine.result().complete(track);
+                return track;
+            } finally {
+                // A no-op after a successful read; on any failure, Errors included, it releases the waiters
+                mine.result().completeExceptionally(
+                        new IllegalStateException("Spotify read of account " + accountId + " failed"));
+            }
+        }
+
+        try {
+            long waitMs = Math.max(0, shared.startedAt() + readDeadlineMs - now);
+            CurrentlyPlayingTrackInfo track = shared.result().get(waitMs, TimeUnit.MILLISECONDS);
+            sharedAccountReads.increment();
+            log.debug("Reusing this cycle's Spotify read of account {} for user {}", accountId, user.getSlackUserId());
+            return track;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared Spotify read", e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Shared Spotify read of account {} unavailable for user {}, reading with their own token",
+                    accountId, user.getSlackUserId());
+            return spotifyService.readCurrentlyPlayingTrack(user);
+        }
+    }
+
+    private boolean hasManualStatusChange(User user, UserSyncState syncState, boolean statusExpired, SyncReads reads) {
+        return reads.statusFetched()
+                ? slackService.hasManualStatusChange(user, syncState, statusExpired, reads.slackStatus())
+                : slackService.hasManualStatusChange(user, syncState, statusExpired);
+    }
+
+    /**
+     * Exponential backoff for accounts that never play anything: after a run of idle polls each further
+     * idle poll doubles the interval, up to the configured maximum. Any playback wakes the user again.
+     */
+    private void recordPoll(User user, SyncSession session, boolean idle) {
+        if (!hibernationEnabled || !idle) {
+            session.wake();
+            return;
+        }
+
+        int idlePolls = session.getIdlePolls() + 1;
+        session.setIdlePolls(idlePolls);
+        if (idlePolls < idlePollsBeforeBackoff) {
+            return;
+        }
+
+        int depth = Math.min(idlePolls - idlePollsBeforeBackoff + 1, MAX_HIBERNATION_DEPTH);
+        long intervalMs = Math.min(pollingIntervalMs << depth, maxHibernationIntervalMs);
+        session.setHibernationDepth(depth);
+        session.setNextPollAt(System.currentTimeMillis() + intervalMs);
+        log.debug("User {} idle for {} polls, next poll in {}s", user.getSlackUserId(), idlePolls, intervalMs / 1000);
     }
 
-    private boolean hasTrackChanged(User user, CurrentlyPlayingTrackInfo currentTrack) {
-        String previousTrackId = user.getCurrentlyPlayingSongId();
+    /**
+     * Ends any hibernation or presence pause so the user is polled on the next cycle.
+     * Called on every interaction with the app.
+     */
+    public void wakeUp(String slackUserId) {
+        userService.findBySlackUserId(slackUserId).ifPresent(user -> {
+            syncSessionRegistry.get(user.getId()).wake();
+            slackPresenceGate.markActive(user.getId());
+        });
+    }
+
+    /**
+     * Clears the status once playback stops, unless it is no longer ours: a mid-track manual status is
+     * never seen by polls that skip the status read, so the live status is compared with the one we last
+     * set right before every clear.
+     */
+    private void handleNoTrackPlaying(User user, UserSyncState syncState, SyncSession session, SyncReads reads) {
+        if (syncState.getCurrentlyPlayingSongId() == null) {
+            return;
+        }
+
+        if (expirationClearingEnabled && !clearGracePeriodElapsed(user, session)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean manual = syncState.isManualStatusSet();
+        if (manual) {
+            log.info("No track playing for user {}, leaving their manual status in place", user.getSlackUserId());
+        } else if (expirationClearingEnabled && session.hasStatusExpired(now)) {
+            log.info("No track playing for user {}, status already expired on Slack", user.getSlackUserId());
+        } else {
+            String currentStatus = reads.statusFetched() ? reads.slackStatus() : slackService.getCurrentStatusText(user);
+            if (currentStatus == null) {
+                // Clearing blind could wipe a status the user set; the next poll tries again
+                log.debug("Could not read the status of user {}, not clearing it this poll", user.getSlackUserId());
+                return;
+            }
+
+            manual = slackService.hasManualStatusChange(user, syncState, session.hasStatusExpired(now), currentStatus);
+            if (manual) {
+                log.info("No track playing for user {}, leaving the status they set during the track in place",
+                        user.getSlackUserId());
+                userService.setManualStatusFlag(user.getId(), true);
+            } else {
+                log.info("No track playing for user {}, clearing status", user.getSlackUserId());
+                slackService.clearUserStatus(user);
+            }
+        }
+
+        session.setPlaybackStoppedAt(null);
+        session.resetStatus();
+        if (manual) {
+            session.setStatusPhase(StatusPhase.MANUAL);
+        }
+        userService.clearCurrentlyPlaying(user.getId());
+        homeViewRefreshService.onTrackChanged(user.getSlackUserId());
+    }
+
+    /**
+     * Hysteresis for expiration-driven clearing: short pauses and skips are left to the
+     * status_expiration already set on Slack, and only playback that stays gone for the
+     * whole grace window gets an explicit clear.
+     */
+    private boolean clearGracePeriodElapsed(User user, SyncSession session) {
+        long now = System.currentTimeMillis();
+
+        if (session.getPlaybackStoppedAt() == null) {
+            session.setPlaybackStoppedAt(now);
+            log.debug("Playback stopped for user {}, leaving status to Slack's expiration", user.getSlackUserId());
+            return false;
+        }
+
+        return now - session.getPlaybackStoppedAt() >= clearGracePeriodMs;
+    }
+
+    /**
+     * The state loaded with the roster page, unless a sync of this user finished after it was read.
+     */
+    private UserSyncState syncStateFor(PollTarget target, SyncSession session) {
+        if (target.syncState() != null && session.getLastSyncFinishedAt() < target.loadedAt()) {
+            return target.syncState();
+        }
+        return userService.getSyncState(target.user().getId());
+    }
+
+    private boolean hasTrackChanged(UserSyncState syncState, CurrentlyPlayingTrackInfo currentTrack) {
+        String previousTrackId = syncState.getCurrentlyPlayingSongId();
 
         if (previousTrackId == null) {
             return true;
@@ -193,52 +645,36 @@ public class MusicSyncService {
         return isAllowed;
     }
 
-    private boolean isWithinWorkingHours(User user) {
-        var settings = userService.getUserSettings(user.getId());
-
-        if (settings.isEmpty()) {
-            log.warn("No settings found for user {}, allowing sync", user.getSlackUserId());
-            return true;
-        }
-
-        var userSettings = settings.get();
-
-        if (!userSettings.isWorkingHoursEnabled()) {
-            return true;
-        }
-
-        if (userSettings.getSyncStartHour() == null || userSettings.getSyncEndHour() == null) {
-            log.debug("Working hours enabled but not configured for user {}, allowing sync", user.getSlackUserId());
-            return true;
-        }
-
-        boolean isWithin = timezoneService.isWithinWorkingHours(
-                userSettings.getSyncStartHour(),
-                userSettings.getSyncEndHour()
-        );
+    public void manualSync(String userId) {
+        log.info("Manual sync requested for user {}", userId);
 
-        if (!isWithin) {
-            log.debug("User {} is outside working hours (UTC {} - {}), skipping sync",
-                    user.getSlackUserId(),
-                    formatHHMM(userSettings.getSyncStartHour()),
-                    formatHHMM(userSettings.getSyncEndHour()));
-        }
+        User user = userService.findBySlackUserId(userId)
+                .orElseThrow(() -> new RuntimeException(AppConstants.ERROR_USER_NOT_FOUND));
 
-        return isWithin;
+        syncSessionRegistry.get(user.getId()).wake();
+        // Always a fresh read, never one shared with a scheduled cycle
+        syncInMailbox(MANUAL_SYNC_OPERATION, new PollTarget(user, null, 0), null);
     }
 
-    private String formatHHMM(int hhmm) {
-        int hour = hhmm / 100;
-        int minute = hhmm % 100;
-        return String.format("%02d:%02d", hour, minute);
+    /**
+     * A roster entry queued for the workers, with the sync state batch-loaded for its page.
+     */
+    private record PollTarget(User user, UserSyncState syncState, long loadedAt) {
     }
 
-    public void manualSync(String userId) {
-        log.info("Manual sync requested for user {}", userId);
+    /**
+     * A playback read of one Spotify account, shared this cycle by the Slack identities linked to it.
+     */
+    private record SharedRead(CompletableFuture<CurrentlyPlayingTrackInfo> result, long startedAt) {
+    }
 
-        User user = userService.findBySlackUserId(userId)
-                .orElseThrow(() -> new RuntimeException(AppConstants.ERROR_USER_NOT_FOUND));
+    private record SyncReads(CurrentlyPlayingTrackInfo track, boolean statusFetched, String slackStatus) {
+    }
 
-        syncUserMusicStatus(user);
+    private enum StatusWrite {
+        NONE,
+        SET,     // new track, first write since startup, or the previous status expired
+        REFRESH, // same track, expiration extended once
+        RESUME   // new track after a manual status, written without checking it again
     }
 }
@@ -0,0 +1,72 @@
+package com.trackify.trackify.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes for the display reads routed to secondaries.
+ * Documents written within the read-routing max staleness are marked here, and display reads for them
+ * go to the primary, so a re-render right after a write never shows the previous version.
+ * User and settings marks travel to the other nodes on the {@link CacheInvalidationBus}; sync state
+ * marks stay local, as the re-render that follows a sync runs on the node that synced.
+ */
+@Component
+public class RecentWriteTracker {
+
+    private static final String CACHE_NAME = "recentWrites";
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final boolean enabled;
+    private final long windowMs;
+    private final Cache<String, Boolean> marks;
+
+    // Until when every document counts as recently written, after the bus may have dropped marks
+    private volatile long everythingRecentUntil;
+
+    public RecentWriteTracker(CacheInvalidationBus cacheInvalidationBus,
+                              @Value("${trackify.mongo.read-routing.enabled:false}") boolean enabled,
+                              @Value("${trackify.mongo.read-routing.max-staleness-seconds:90}") long maxStalenessSeconds,
+                              @Value("${trackify.mongo.read-routing.recent-writes.max-entries:100000}") long maxEntries) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.enabled = enabled;
+        this.windowMs = Duration.ofSeconds(maxStalenessSeconds).toMillis();
+        this.marks = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+
+        cacheInvalidationBus.register(CACHE_NAME, key -> {
+            if (CacheInvalidationBus.ALL_KEYS.equals(key)) {
+                everythingRecentUntil = System.currentTimeMillis() + windowMs;
+            } else {
+                marks.put(key, Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * Marks a document as just written, here and, when shared, on the other nodes.
+     */
+    public void markWritten(String collection, String key, boolean shared) {
+        if (!enabled || key == null) {
+            return;
+        }
+        String mark = collection + ":" + key;
+        marks.put(mark, Boolean.TRUE);
+        if (shared) {
+            cacheInvalidationBus.publish(CACHE_NAME, mark);
+        }
+    }
+
+    /**
+     * Whether a secondary may still be missing the latest write of the document.
+     */
+    public boolean isRecentlyWritten(String collection, String key) {
+        return enabled && (System.currentTimeMillis() < everythingRecentUntil
+                || marks.getIfPresent(collection + ":" + key) != null);
+    }
+}
@@ -0,0 +1,130 @@
+package com.trackify.trackify.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trackify.trackify.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Optional gate that pauses Spotify polling for users who are away in Slack.
+ * Presence is cached per user and refreshed by a bounded sweep of users.getPresence calls, away users
+ * first and more often so polling resumes soon after they come back; any interaction with the app
+ * marks the user active at once. Unknown or failed lookups fail open: the user is polled as usual.
+ */
+@Slf4j
+@Service
+public class SlackPresenceGate {
+
+    private final SlackService slackService;
+    private final UserService userService;
+    private final Cache<String, Presence> presence;
+    // Ids only: the user is loaded when the lookup actually runs
+    private final Cache<String, PendingLookup> pendingLookups;
+
+    @Value("${trackify.sync.presence-gate.enabled:false}")
+    private boolean enabled;
+
+    @Value("${trackify.sync.presence-gate.away-recheck-ms:60000}")
+    private long awayRecheckMs;
+
+    @Value("${trackify.sync.presence-gate.active-recheck-ms:300000}")
+    private long activeRecheckMs;
+
+    @Value("${trackify.sync.presence-gate.max-lookups-per-sweep:100}")
+    private int maxLookupsPerSweep;
+
+    public SlackPresenceGate(SlackService slackService,
+                             UserService userService,
+                             @Value("${trackify.sync.presence-gate.max-entries:100000}") long maxEntries,
+                             @Value("${trackify.sync.presence-gate.max-staleness-ms:900000}") long maxStalenessMs) {
+        this.slackService = slackService;
+        this.userService = userService;
+        // Past the staleness bound an entry is dropped, so a stuck sweep can never pause anyone for long
+        this.presence = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(maxStalenessMs))
+                .build();
+        // A lookup nobody got to is queued again by the next shouldPoll, so old ones can simply go
+        this.pendingLookups = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(maxStalenessMs))
+                .build();
+    }
+
+    /**
+     * Whether the sync cycle should poll Spotify for this user. Queues a presence lookup when the
+     * cached value is missing or due for a recheck.
+     */
+    public boolean shouldPoll(User user) {
+        if (!enabled) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        Presence known = presence.getIfPresent(user.getId());
+        if (known == null || now - known.checkedAt() >= (known.away() ? awayRecheckMs : activeRecheckMs)) {
+            pendingLookups.asMap().putIfAbsent(user.getId(),
+                    new PendingLookup(user.getSlackUserId(), known != null && known.away()));
+        }
+        return known == null || !known.away();
+    }
+
+    /**
+     * Records that the user is active right now, e.g. because they just interacted with the app.
+     */
+    public void markActive(String userId) {
+        if (enabled) {
+            presence.put(userId, new Presence(false, System.currentTimeMillis()));
+            pendingLookups.invalidate(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trackify.sync.presence-gate.sweep-interval-ms:15000}")
+    public void sweep() {
+        if (!enabled || pendingLookups.estimatedSize() == 0) {
+            return;
+        }
+
+        // Away users first: they are the ones waiting to be let back in
+        List<Map.Entry<String, PendingLookup>> batch = pendingLookups.asMap().entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, PendingLookup> entry) -> entry.getValue().away()).reversed())
+                .limit(maxLookupsPerSweep)
+                .toList();
+
+        int away = 0;
+        for (Map.Entry<String, PendingLookup> lookup : batch) {
+            String userId = lookup.getKey();
+            pendingLookups.invalidate(userId);
+
+            Optional<User> user = userService.findBySlackUserId(lookup.getValue().slackUserId());
+            if (user.isEmpty()) {
+                continue;
+            }
+
+            Boolean isAway = slackService.isUserAway(user.get());
+            // A failed lookup counts as active until the next recheck
+            presence.put(userId, new Presence(Boolean.TRUE.equals(isAway), System.currentTimeMillis()));
+            if (Boolean.TRUE.equals(isAway)) {
+                away++;
+            }
+        }
+
+        log.debug("Presence sweep checked {} users ({} away, {} still pending)",
+                batch.size(), away, pendingLookups.estimatedSize());
+    }
+
+    private record Presence(boolean away, long checkedAt) {
+    }
+
+    private record PendingLookup(String slackUserId, boolean away) {
+    }
+}
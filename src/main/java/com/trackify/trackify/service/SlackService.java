@@ -8,6 +8,7 @@ import com.slack.api.model.User.Profile;
 import com.trackify.trackify.constants.AppConstants;
 import com.trackify.trackify.model.User;
 import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.UserSyncState;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -33,14 +34,14 @@ public class SlackService {
             maxAttemptsExpression = "${trackify.retry.max-attempts}",
             backoff = @Backoff(delayExpression = "${trackify.retry.backoff-delay}", multiplier = 2)
     )
-    public void updateUserStatus(User user, String songTitle, String artist, Integer durationMs, Integer progressMs) {
+    public Long updateUserStatus(User user, String songTitle, String artist, Integer durationMs, Integer progressMs) {
         try {
             UserSettings settings = userService.getUserSettings(user.getId())
                     .orElseThrow(() -> new RuntimeException(AppConstants.ERROR_USER_SETTINGS_NOT_FOUND));
 
             if (!settings.isSyncEnabled()) {
                 log.debug("Sync disabled for user {}, skipping status update", user.getSlackUserId());
-                return;
+                return null;
             }
 
             String statusText = buildStatusText(settings, songTitle, artist);
@@ -62,12 +63,13 @@ public class SlackService {
                         remainingSeconds, durationMs / 1000, currentProgress / 1000, expirationOverheadMs / 1000);
             }
 
-            setSlackStatus(user.getSlackAccessToken(), statusText, statusEmoji, statusExpiration);
+            setSlackStatus(userService.getSlackAccessToken(user), statusText, statusEmoji, statusExpiration);
 
             userService.updateLastSetStatus(user.getId(), statusText);
 
             log.info("Updated Slack status for user {}: {} (expires in {}s)",
                     user.getSlackUserId(), statusText, statusExpiration != null ? (statusExpiration - System.currentTimeMillis() / 1000) : "N/A");
+            return statusExpiration;
         } catch (RuntimeException e) {
             // Check if this is a token invalidation error
             if (e.getMessage() != null && e.getMessage().contains("Slack token invalidated")) {
@@ -81,12 +83,13 @@ public class SlackService {
                     String notificationMessage = "⚠️ *Your Slack connection has been revoked*\n\n" +
                             "Trackify can no longer update your Slack status. " +
                             "To resume automatic status updates, please reinstall the app.";
-                    sendMessage(user.getSlackAccessToken(), user.getSlackUserId(), notificationMessage);
+                    sendMessage(userService.getSlackAccessToken(user), user.getSlackUserId(), notificationMessage);
                     log.info("Sent invalidation notification to user {}", user.getSlackUserId());
                 } catch (Exception notifyError) {
                     log.warn("Could not send invalidation notification to user {}: {}",
                             user.getSlackUserId(), notifyError.getMessage());
                 }
+                return null;
             } else {
                 log.error("Error updating Slack status for user {}", user.getSlackUserId(), e);
                 throw new RuntimeException(AppConstants.ERROR_FAILED_TO_UPDATE_SLACK_STATUS, e);
@@ -103,7 +106,7 @@ public class SlackService {
     )
     public void clearUserStatus(User user) {
         try {
-            setSlackStatus(user.getSlackAccessToken(), "", "", null);
+            setSlackStatus(userService.getSlackAccessToken(user), "", "", null);
             log.info("Cleared Slack status for user {}", user.getSlackUserId());
         } catch (Exception e) {
             log.error("Error clearing Slack status for user {}", user.getSlackUserId(), e);
@@ -184,13 +187,53 @@ public class SlackService {
         }
     }
 
+    /**
+     * Fetches the user's IANA timezone (e.g. "America/Los_Angeles") from Slack API.
+     * Unlike the offset, it stays correct across DST changes. Returns null if unable to fetch.
+     */
+    public String getUserTimezoneId(String accessToken, String userId) {
+        try {
+            MethodsClient client = slack.methods(accessToken);
+            var response = client.usersInfo(req -> req.user(userId));
+
+            if (response.isOk() && response.getUser() != null) {
+                return response.getUser().getTz();
+            }
+            log.warn("Failed to fetch user info for {}: {}", userId, response.getError());
+            return null;
+        } catch (Exception e) {
+            log.error("Error fetching user info for {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Fetches whether the user is currently away in Slack (users.getPresence, needs users:read).
+     * Returns null if unable to fetch, e.g. for installs that predate the scope.
+     */
+    public Boolean isUserAway(User user) {
+        try {
+            MethodsClient client = slack.methods(userService.getSlackAccessToken(user));
+            var response = client.usersGetPresence(req -> req.user(user.getSlackUserId()));
+
+            if (response.isOk()) {
+                return "away".equals(response.getPresence());
+            }
+            log.debug("Failed to fetch presence for user {}: {}", user.getSlackUserId(), response.getError());
+            return null;
+        } catch (Exception e) {
+            log.warn("Error fetching presence for user {}: {}", user.getSlackUserId(), e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Fetches the current Slack status for a user.
      * Returns null if unable to fetch (e.g., network error, invalid token).
      */
     public String getCurrentStatusText(User user) {
         try {
-            MethodsClient client = slack.methods(user.getSlackAccessToken());
+            MethodsClient client = slack.methods(userService.getSlackAccessToken(user));
             var response = client.usersProfileGet(req -> req.user(user.getSlackUserId()));
 
             if (response.isOk() && response.getProfile() != null) {
@@ -208,18 +251,30 @@ public class SlackService {
     }
 
     /**
-     * Checks if the user has manually changed their Slack status.
-     * Returns true if the current status differs from what we last set.
+     * Checks if the user has manually changed their Slack status, i.e. the current status differs from
+     * what we last set according to the given sync state. When the status we last set is known to have
+     * expired on Slack's side, an empty status is Slack's doing rather than the user's.
      */
-    public boolean hasManualStatusChange(User user) {
-        String currentStatus = getCurrentStatusText(user);
+    public boolean hasManualStatusChange(User user, UserSyncState syncState, boolean lastStatusExpired) {
+        return hasManualStatusChange(user, syncState, lastStatusExpired, getCurrentStatusText(user));
+    }
 
+    /**
+     * Same check against a status already fetched with {@link #getCurrentStatusText(User)}, e.g. in parallel with other reads.
+     */
+    public boolean hasManualStatusChange(User user, UserSyncState syncState, boolean lastStatusExpired,
+                                         String currentStatus) {
         if (currentStatus == null) {
             log.debug("Could not fetch current status for user {}, assuming no manual change", user.getSlackUserId());
             return false;
         }
 
-        String lastSetStatus = user.getLastSetStatusText();
+        if (lastStatusExpired && currentStatus.isEmpty()) {
+            log.debug("Status for user {} expired on Slack's side, not a manual change", user.getSlackUserId());
+            return false;
+        }
+
+        String lastSetStatus = syncState.getLastSetStatusText();
 
         if (lastSetStatus == null) {
             boolean isManual = !currentStatus.isEmpty();
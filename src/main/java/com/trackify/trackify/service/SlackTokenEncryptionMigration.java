@@ -0,0 +1,111 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * One-off migration of the Slack tokens that used to be stored in plaintext on the users collection.
+ * Encrypts each into its encrypted* field unless that is already set, and only if the plaintext is still
+ * the value we read, so a reinstall racing the migration is never overwritten.
+ * The plaintext fields stay until unset-plaintext is turned on: nodes of older releases still read them
+ * during a rolling deploy. Idempotent: once nothing is left to encrypt or unset it finds nothing to do.
+ * Runs once every singleton exists but before the context is refreshed, so installation lookups, which
+ * read only the encrypted fields, never see (and cache) an unmigrated team.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+@RequiredArgsConstructor
+public class SlackTokenEncryptionMigration implements SmartInitializingSingleton {
+
+    private static final String USERS_COLLECTION = "users";
+    private static final String LEGACY_ACCESS_TOKEN = "slackAccessToken";
+    private static final String LEGACY_BOT_TOKEN = "slackBotToken";
+    private static final String ENCRYPTED_ACCESS_TOKEN = "encryptedSlackAccessToken";
+    private static final String ENCRYPTED_BOT_TOKEN = "encryptedSlackBotToken";
+
+    private final MongoTemplate mongoTemplate;
+    private final EncryptionUtil encryptionUtil;
+
+    @Value("${trackify.migration.slack-token-encryption.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trackify.migration.slack-token-encryption.unset-plaintext:false}")
+    private boolean unsetPlaintext;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        Query legacyUsers = Query.query(new Criteria().orOperator(
+                pending(LEGACY_ACCESS_TOKEN, ENCRYPTED_ACCESS_TOKEN),
+                pending(LEGACY_BOT_TOKEN, ENCRYPTED_BOT_TOKEN)));
+        legacyUsers.fields().include("_id")
+                .include(LEGACY_ACCESS_TOKEN).include(LEGACY_BOT_TOKEN)
+                .include(ENCRYPTED_ACCESS_TOKEN).include(ENCRYPTED_BOT_TOKEN);
+
+        int migrated = 0;
+        try (Stream<Document> users = mongoTemplate.stream(legacyUsers, Document.class, USERS_COLLECTION)) {
+            Iterator<Document> cursor = users.iterator();
+            while (cursor.hasNext()) {
+                Document user = cursor.next();
+                migrated += migrate(user, LEGACY_ACCESS_TOKEN, ENCRYPTED_ACCESS_TOKEN);
+                migrated += migrate(user, LEGACY_BOT_TOKEN, ENCRYPTED_BOT_TOKEN);
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Migrated {} plaintext Slack tokens (plaintext {})", migrated, unsetPlaintext ? "removed" : "kept");
+        }
+    }
+
+    /**
+     * Users with work left on this token: encrypting it, or, once enabled, removing the plaintext.
+     */
+    private Criteria pending(String legacyField, String encryptedField) {
+        return unsetPlaintext
+                ? Criteria.where(legacyField).exists(true)
+                : Criteria.where(legacyField).ne(null).and(encryptedField).exists(false);
+    }
+
+    private int migrate(Document user, String legacyField, String encryptedField) {
+        if (!user.containsKey(legacyField)) {
+            return 0;
+        }
+
+        String plaintext = user.getString(legacyField);
+        boolean encrypt = plaintext != null && !user.containsKey(encryptedField);
+        Update update = new Update();
+        if (encrypt) {
+            update.set(encryptedField, encryptionUtil.encrypt(plaintext));
+        }
+        if (unsetPlaintext) {
+            update.unset(legacyField);
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return 0;
+        }
+
+        Criteria unchanged = Criteria.where("_id").is(user.get("_id")).and(legacyField).is(plaintext);
+        if (encrypt) {
+            // A token written by a reinstall since we read the user is newer than the plaintext
+            unchanged.and(encryptedField).exists(false);
+        }
+        return (int) mongoTemplate.updateFirst(Query.query(unchanged), update, USERS_COLLECTION).getModifiedCount();
+    }
+}
@@ -6,6 +6,7 @@ import com.trackify.trackify.exception.*;
 import com.trackify.trackify.model.CurrentlyPlayingTrackInfo;
 import com.trackify.trackify.model.SpotifyDevice;
 import com.trackify.trackify.model.User;
+import com.trackify.trackify.util.OAuthStateSigner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.core5.http.ParseException;
@@ -39,6 +40,15 @@ public class SpotifyService {
     private final SpotifyConfig spotifyConfig;
     private final UserService userService;
     private final TokenValidationService tokenValidationService;
+    private final OAuthStateSigner stateSigner;
+
+    /**
+     * Link that starts the Spotify connect flow for a user. It carries a signed, expiring state bound to the
+     * user rather than the user ID, so nobody can start a flow that links their account to someone else.
+     */
+    public String buildConnectLink(String userId) {
+        return AppConstants.OAUTH_SPOTIFY_PATH + "?state=" + stateSigner.issue(userId);
+    }
 
     public URI getAuthorizationUri() {
         SpotifyApi spotifyApi = getSpotifyApi(null);
@@ -69,6 +79,26 @@ public class SpotifyService {
         return refreshRequest.execute();
     }
 
+    /**
+     * Fetches the Spotify account ID behind an access token (GET /me).
+     * Returns null if unable to fetch.
+     */
+    public String getSpotifyUserId(String accessToken) {
+        try {
+            return getSpotifyApi(accessToken).getCurrentUsersProfile().build().execute().getId();
+        } catch (Exception e) {
+            log.warn("Error fetching Spotify profile: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * False for users connected before account IDs were resolved, who only have a placeholder.
+     */
+    public static boolean isResolvedSpotifyUserId(String spotifyUserId) {
+        return spotifyUserId != null && !spotifyUserId.startsWith(AppConstants.SPOTIFY_USER_ID_PREFIX);
+    }
+
     private User ensureValidToken(User user) throws IOException, ParseException, SpotifyWebApiException {
         if (userService.isSpotifyTokenExpired(user)) {
             log.debug("Spotify token expired or expiring soon for user {}, refreshing...", user.getSlackUserId());
@@ -122,7 +152,24 @@ public class SpotifyService {
         }
     }
 
+    /**
+     * The user's current playback, or null if nothing is playing or the read failed.
+     * Callers that must not take a failure for "nothing playing" use {@link #readCurrentlyPlayingTrack}.
+     */
     public CurrentlyPlayingTrackInfo getCurrentlyPlayingTrack(User user) {
+        try {
+            return readCurrentlyPlayingTrack(user);
+        } catch (SpotifyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The user's current playback, or null if nothing is playing. A failed read throws instead:
+     * {@link SpotifyTokenExpiredException} for a rejected token (which is also marked invalidated),
+     * {@link SpotifyRateLimitException} for a 429 and {@link SpotifyException} for anything else.
+     */
+    public CurrentlyPlayingTrackInfo readCurrentlyPlayingTrack(User user) {
         try {
             user = ensureValidToken(user);
 
@@ -160,19 +207,22 @@ public class SpotifyService {
         } catch (UnauthorizedException e) {
             log.warn("Unauthorized error for user {}: {}", user.getSlackUserId(), e.getMessage());
             handleSpotifyTokenError(user, e.getMessage());
-            return null;
+            throw new SpotifyTokenExpiredException(e.getMessage());
+        } catch (TooManyRequestsException e) {
+            log.warn("Spotify rate limit hit for user {}, retry after {}s", user.getSlackUserId(), e.getRetryAfter());
+            throw new SpotifyRateLimitException(e.getMessage());
         } catch (SpotifyWebApiException e) {
             String errorMsg = e.getMessage();
             if (tokenValidationService.isSpotifyTokenInvalidError(errorMsg)) {
                 log.warn("Token invalidation detected for user {}: {}", user.getSlackUserId(), errorMsg);
                 handleSpotifyTokenError(user, errorMsg);
-            } else {
-                log.error("Spotify API error for user {}: {}", user.getSlackUserId(), errorMsg);
+                throw new SpotifyTokenExpiredException(errorMsg);
             }
-            return null;
+            log.error("Spotify API error for user {}: {}", user.getSlackUserId(), errorMsg);
+            throw new SpotifyException("Spotify API error: " + errorMsg, e);
         } catch (Exception e) {
             log.error("Error fetching currently playing track for user {}", user.getId(), e);
-            return null;
+            throw new SpotifyException("Error fetching currently playing track", e);
         }
     }
 
@@ -248,9 +298,16 @@ public class SpotifyService {
             String refreshToken = userService.getDecryptedSpotifyRefreshToken(user);
             AuthorizationCodeCredentials credentials = refreshAccessToken(refreshToken);
 
+            // Backfills the account ID of users connected with a placeholder, once
+            String spotifyUserId = user.getSpotifyUserId();
+            if (!isResolvedSpotifyUserId(spotifyUserId)) {
+                String resolved = getSpotifyUserId(credentials.getAccessToken());
+                spotifyUserId = resolved != null ? resolved : spotifyUserId;
+            }
+
             userService.updateSpotifyTokens(
                     user.getId(),
-                    user.getSpotifyUserId(),
+                    spotifyUserId,
                     credentials.getAccessToken(),
                     credentials.getRefreshToken() != null ? credentials.getRefreshToken() : refreshToken,
                     credentials.getExpiresIn()
@@ -272,7 +329,7 @@ public class SpotifyService {
         }
     }
 
-    private SpotifyApi getSpotifyApi(String accessToken) {
+    SpotifyApi getSpotifyApi(String accessToken) {
         SpotifyApi.Builder builder = SpotifyApi.builder()
                 .setClientId(spotifyConfig.getClientId())
                 .setClientSecret(spotifyConfig.getClientSecret())
@@ -0,0 +1,41 @@
+package com.trackify.trackify.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trackify.trackify.model.SyncSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Holds the in-memory {@link SyncSession} of every user the sync engine has seen recently.
+ * Sessions of users who stop being polled (dormant, deactivated, uninstalled) expire; losing one only
+ * costs a re-learn on the next poll.
+ */
+@Service
+public class SyncSessionRegistry {
+
+    private final Cache<String, SyncSession> sessions;
+
+    public SyncSessionRegistry(@Value("${trackify.sync.session.max-entries:1000000}") long maxEntries,
+                               @Value("${trackify.sync.session.idle-expiry-ms:3600000}") long idleExpiryMs) {
+        // Polled users touch their session every cycle, even while hibernating
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofMillis(idleExpiryMs))
+                .build();
+    }
+
+    public SyncSession get(String userId) {
+        return sessions.get(userId, SyncSession::new);
+    }
+
+    public void remove(String userId) {
+        sessions.invalidate(userId);
+    }
+
+    public long size() {
+        return sessions.estimatedSize();
+    }
+}
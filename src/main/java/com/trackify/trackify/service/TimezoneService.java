@@ -3,9 +3,12 @@ package com.trackify.trackify.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
@@ -100,6 +103,22 @@ public class TimezoneService {
         }
     }
 
+    /**
+     * Returns the current UTC offset of an IANA timezone in seconds, or null if the zone is unknown.
+     */
+    public Integer currentOffsetSeconds(String timezoneId) {
+        if (timezoneId == null) {
+            return null;
+        }
+
+        try {
+            return ZoneId.of(timezoneId).getRules().getOffset(Instant.now()).getTotalSeconds();
+        } catch (DateTimeException e) {
+            log.warn("Unknown timezone {}: {}", timezoneId, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Checks if the current UTC time is within the specified working hours.
      * Handles wrap-around cases (e.g., 22:00 to 06:00 spans midnight).
@@ -0,0 +1,298 @@
+package com.trackify.trackify.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.trackify.trackify.model.MigrationCheckpoint;
+import com.trackify.trackify.util.EncryptionUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Background re-encryption of stored Spotify tokens to the active key and write format.
+ * Streams users in _id order through a cursor, re-encrypts stale ciphertexts in batches applied
+ * with unordered bulk $set, paces itself to a maximum rate and checkpoints after every batch so a
+ * restart resumes where it stopped. Sync keeps running meanwhile: EncryptionUtil reads every
+ * format, and each update only applies if the token was not rewritten since it was read.
+ * Every node starts the job, but only the one holding the lease on the checkpoint streams users;
+ * the lease is renewed with every checkpoint and taken over by another node once it expires.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+@RequiredArgsConstructor
+public class TokenReencryptionJob implements ApplicationRunner {
+
+    private static final String USERS_COLLECTION = "users";
+    private static final List<String> TOKEN_FIELDS = List.of(
+            "encryptedSpotifyAccessToken",
+            "encryptedSpotifyRefreshToken",
+            "encryptedSlackAccessToken",
+            "encryptedSlackBotToken"
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final UserService userService;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+
+    @Value("${trackify.encryption.reencryption.enabled:false}")
+    private boolean enabled;
+
+    @Value("${trackify.encryption.reencryption.batch-size:200}")
+    private int batchSize;
+
+    @Value("${trackify.encryption.reencryption.max-users-per-second:500}")
+    private int maxUsersPerSecond;
+
+    @Value("${trackify.encryption.reencryption.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        Thread.ofVirtual().name("token-reencryption").start(() -> {
+            try {
+                reencryptAll();
+            } catch (Exception e) {
+                log.error("Token re-encryption stopped; it will resume from its checkpoint on next start", e);
+            }
+        });
+    }
+
+    private void reencryptAll() {
+        MigrationCheckpoint checkpoint = awaitLease("token-reencryption:" + encryptionUtil.currentVersion());
+        if (checkpoint == null) {
+            return;
+        }
+
+        log.info("Token re-encryption to {} starting after user {} ({} scanned so far)",
+                encryptionUtil.currentVersion(), checkpoint.getLastProcessedId(), checkpoint.getScannedCount());
+
+        List<Document> batch = new ArrayList<>(batchSize);
+        try (Stream<Document> users = mongoTemplate.stream(remainingUsers(checkpoint), Document.class, USERS_COLLECTION)) {
+            Iterator<Document> iterator = users.iterator();
+            while (running && iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    processBatch(batch, checkpoint);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (running && !batch.isEmpty()) {
+            processBatch(batch, checkpoint);
+        }
+        if (!running) {
+            log.info("Token re-encryption paused at user {}", checkpoint.getLastProcessedId());
+            releaseLease(checkpoint, null);
+            return;
+        }
+
+        releaseLease(checkpoint, LocalDateTime.now());
+        log.info("Token re-encryption to {} completed: {} users scanned, {} tokens rewritten",
+                encryptionUtil.currentVersion(), checkpoint.getScannedCount(), checkpoint.getUpdatedCount());
+    }
+
+    private Query remainingUsers(MigrationCheckpoint checkpoint) {
+        Criteria hasTokens = new Criteria().orOperator(TOKEN_FIELDS.stream()
+                .map(field -> Criteria.where(field).exists(true))
+                .toArray(Criteria[]::new));
+        Criteria criteria = checkpoint.getLastProcessedId() == null
+                ? hasTokens
+                : new Criteria().andOperator(Criteria.where("_id").gt(checkpoint.getLastProcessedId()), hasTokens);
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(batchSize)
+                .noCursorTimeout();
+        query.fields().include("slackUserId").include(TOKEN_FIELDS.toArray(String[]::new));
+        return query;
+    }
+
+    private void processBatch(List<Document> batch, MigrationCheckpoint checkpoint) {
+        long startedAt = System.currentTimeMillis();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, USERS_COLLECTION);
+        List<String> touchedUsers = new ArrayList<>();
+        int pendingUpdates = 0;
+
+        for (Document user : batch) {
+            boolean touched = false;
+            for (String field : TOKEN_FIELDS) {
+                String ciphertext = user.getString(field);
+                if (ciphertext == null || encryptionUtil.isCurrent(ciphertext)) {
+                    continue;
+                }
+
+                try {
+                    String reencrypted = encryptionUtil.encrypt(encryptionUtil.decrypt(ciphertext));
+                    // Matching on the old ciphertext leaves tokens refreshed since the read untouched
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(user.get("_id")).and(field).is(ciphertext)),
+                            new Update().set(field, reencrypted));
+                    pendingUpdates++;
+                    touched = true;
+                } catch (RuntimeException e) {
+                    log.warn("Skipping {} of user {}: {}", field, user.getString("slackUserId"), e.getMessage());
+                }
+            }
+            if (touched) {
+                touchedUsers.add(user.getString("slackUserId"));
+            }
+        }
+
+        if (pendingUpdates > 0) {
+            BulkWriteResult result = bulk.execute();
+            checkpoint.setUpdatedCount(checkpoint.getUpdatedCount() + result.getModifiedCount());
+            touchedUsers.forEach(userService::evictCachedUser);
+        }
+
+        checkpoint.setLastProcessedId(batch.get(batch.size() - 1).getObjectId("_id"));
+        checkpoint.setScannedCount(checkpoint.getScannedCount() + batch.size());
+        if (!saveCheckpoint(checkpoint)) {
+            log.warn("Token re-encryption lease lost to another node, stopping at user {}", checkpoint.getLastProcessedId());
+            running = false;
+            return;
+        }
+
+        log.debug("Token re-encryption batch done: {} users, {} updates, {} scanned in total",
+                batch.size(), pendingUpdates, checkpoint.getScannedCount());
+        throttle(batch.size(), startedAt);
+    }
+
+    private void throttle(int processed, long startedAt) {
+        if (maxUsersPerSecond <= 0) {
+            return;
+        }
+
+        long minimumDurationMs = processed * 1000L / maxUsersPerSecond;
+        long remainingMs = minimumDurationMs - (System.currentTimeMillis() - startedAt);
+        if (remainingMs <= 0) {
+            return;
+        }
+
+        sleep(remainingMs);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * Waits until this node holds the lease, checking again every lease period in case the holder died.
+     * Returns null once the migration is completed or the job is stopped.
+     */
+    private MigrationCheckpoint awaitLease(String checkpointId) {
+        boolean waiting = false;
+        while (running) {
+            MigrationCheckpoint existing = mongoTemplate.findById(checkpointId, MigrationCheckpoint.class);
+            if (existing != null && existing.getCompletedAt() != null) {
+                log.info("Token re-encryption to {} already completed at {}", encryptionUtil.currentVersion(), existing.getCompletedAt());
+                return null;
+            }
+
+            MigrationCheckpoint checkpoint = acquireLease(checkpointId);
+            if (checkpoint != null) {
+                return checkpoint;
+            }
+            if (!waiting) {
+                log.info("Token re-encryption to {} is running on another node, standing by", encryptionUtil.currentVersion());
+                waiting = true;
+            }
+            sleep(leaseSeconds * 1000);
+        }
+        return null;
+    }
+
+    /**
+     * Takes the lease if nobody holds it, it expired, or this node already holds it, creating the
+     * checkpoint on first run. Returns null while another node holds a live lease.
+     */
+    private MigrationCheckpoint acquireLease(String checkpointId) {
+        LocalDateTime now = LocalDateTime.now();
+        Query available = Query.query(Criteria.where("_id").is(checkpointId).orOperator(
+                Criteria.where("leaseOwner").is(null),
+                Criteria.where("leaseOwner").is(nodeId),
+                Criteria.where("leaseExpiresAt").lt(now)));
+        Update take = new Update()
+                .set("leaseOwner", nodeId)
+                .set("leaseExpiresAt", now.plusSeconds(leaseSeconds))
+                .setOnInsert("startedAt", now);
+        try {
+            return mongoTemplate.findAndModify(available, take,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), MigrationCheckpoint.class);
+        } catch (DuplicateKeyException e) {
+            // The checkpoint exists but did not match: another node holds the lease
+            return null;
+        }
+    }
+
+    /**
+     * Stores progress and renews the lease. Fails if another node took the lease over meanwhile.
+     */
+    private boolean saveCheckpoint(MigrationCheckpoint checkpoint) {
+        LocalDateTime now = LocalDateTime.now();
+        checkpoint.setUpdatedAt(now);
+        Update progress = new Update()
+                .set("lastProcessedId", checkpoint.getLastProcessedId())
+                .set("scannedCount", checkpoint.getScannedCount())
+                .set("updatedCount", checkpoint.getUpdatedCount())
+                .set("updatedAt", now)
+                .set("leaseExpiresAt", now.plusSeconds(leaseSeconds));
+        return mongoTemplate.updateFirst(heldLease(checkpoint), progress, MigrationCheckpoint.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Gives the lease up so another node can resume at once, marking the migration completed if it is.
+     */
+    private void releaseLease(MigrationCheckpoint checkpoint, LocalDateTime completedAt) {
+        Update release = new Update()
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+        if (completedAt != null) {
+            release.set("completedAt", completedAt).set("updatedAt", completedAt);
+        }
+        mongoTemplate.updateFirst(heldLease(checkpoint), release, MigrationCheckpoint.class);
+    }
+
+    private Query heldLease(MigrationCheckpoint checkpoint) {
+        return Query.query(Criteria.where("_id").is(checkpoint.getId()).and("leaseOwner").is(nodeId));
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+}
@@ -0,0 +1,190 @@
+package com.trackify.trackify.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One mailbox per user through which every operation on that user runs, one at a time.
+ * Syncs (scheduled or manual), settings saves and playback commands for the same user are queued and
+ * drained in order by a virtual thread that exists only while the mailbox has work; different users
+ * run in parallel. A coalescing operation joins an identical one still waiting in the queue, so three
+ * quick "Sync Now" clicks cost one sync. Mailbox state is only touched inside the map's per-key
+ * compute, so there is no global lock.
+ */
+@Slf4j
+@Service
+public class UserMailboxes {
+
+    // Lets an operation call back into its own user's mailbox without waiting on itself
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("user-mailbox-", 0).factory());
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+
+    public UserMailboxes(MeterRegistry meterRegistry) {
+        this.coalescedCounter = Counter.builder("trackify.mailbox.coalesced")
+                .description("User operations merged into an identical one already queued")
+                .register(meterRegistry);
+        Gauge.builder("trackify.mailbox.active", mailboxes, Map::size)
+                .description("Users with queued or running operations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the operation in the user's mailbox and waits for its result.
+     */
+    public <T> T call(String userId, String kind, Callable<T> task) {
+        return await(userId, kind, task, false);
+    }
+
+    /**
+     * Like {@link #call}, but if an operation of the same kind is still queued for the user, waits
+     * for that one instead of queueing another.
+     */
+    public <T> T callCoalescing(String userId, String kind, Callable<T> task) {
+        return await(userId, kind, task, true);
+    }
+
+    public void run(String userId, String kind, Runnable task) {
+        call(userId, kind, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(String userId, String kind, Callable<T> task, boolean coalesce) {
+        if (userId.equals(CURRENT_USER.get())) {
+            return runInline(userId, kind, task);
+        }
+
+        try {
+            return (T) admit(userId, kind, task, coalesce).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(kind + " failed for user " + userId, e.getCause());
+        }
+    }
+
+    private <T> T runInline(String userId, String kind, Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(kind + " failed for user " + userId, e);
+        }
+    }
+
+    private CompletableFuture<Object> admit(String userId, String kind, Callable<?> task, boolean coalesce) {
+        Envelope envelope = new Envelope(kind, task, coalesce, new CompletableFuture<>());
+        AtomicReference<Envelope> accepted = new AtomicReference<>(envelope);
+        AtomicBoolean startDrainer = new AtomicBoolean();
+
+        mailboxes.compute(userId, (key, existing) -> {
+            Mailbox mailbox = existing != null ? existing : new Mailbox();
+            Envelope queued = coalesce ? mailbox.queuedCoalescing(kind) : null;
+            if (queued != null) {
+                accepted.set(queued);
+                return mailbox;
+            }
+
+            mailbox.queue.add(envelope);
+            if (!mailbox.draining) {
+                mailbox.draining = true;
+                startDrainer.set(true);
+            }
+            return mailbox;
+        });
+
+        if (accepted.get() != envelope) {
+            coalescedCounter.increment();
+            log.debug("Coalesced {} for user {} into the one already queued", kind, userId);
+        }
+        if (startDrainer.get()) {
+            executor.execute(() -> drain(userId));
+        }
+        return accepted.get().future();
+    }
+
+    private void drain(String userId) {
+        CURRENT_USER.set(userId);
+        try {
+            for (Envelope envelope = next(userId); envelope != null; envelope = next(userId)) {
+                try {
+                    envelope.future().complete(envelope.task().call());
+                } catch (Throwable t) {
+                    // Anything escaping here would leave the mailbox marked as draining forever
+                    envelope.future().completeExceptionally(t);
+                }
+            }
+        } finally {
+            CURRENT_USER.remove();
+        }
+    }
+
+    /**
+     * Takes the next operation, or drops the mailbox when it is empty so idle users cost nothing.
+     */
+    private Envelope next(String userId) {
+        AtomicReference<Envelope> next = new AtomicReference<>();
+        mailboxes.computeIfPresent(userId, (key, mailbox) -> {
+            next.set(mailbox.queue.poll());
+            return next.get() != null ? mailbox : null;
+        });
+        return next.get();
+    }
+
+    public int activeCount() {
+        return mailboxes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Only read or written inside {@code mailboxes.compute} for its user.
+     */
+    private static final class Mailbox {
+
+        private final Deque<Envelope> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        Envelope queuedCoalescing(String kind) {
+            for (Envelope envelope : queue) {
+                if (envelope.coalesce() && envelope.kind().equals(kind)) {
+                    return envelope;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Envelope(String kind, Callable<?> task, boolean coalesce, CompletableFuture<Object> future) {
+    }
+}
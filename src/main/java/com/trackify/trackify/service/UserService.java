@@ -1,38 +1,76 @@
 package com.trackify.trackify.service;
 
+import com.trackify.trackify.config.CacheConfig;
 import com.trackify.trackify.model.User;
 import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.UserSyncState;
+import com.trackify.trackify.model.WorkingHoursWindow;
+import com.trackify.trackify.repository.SecondaryReadRepository;
 import com.trackify.trackify.repository.UserRepository;
 import com.trackify.trackify.repository.UserSettingsRepository;
+import com.trackify.trackify.repository.UserSyncStateRepository;
 import com.trackify.trackify.util.EncryptionUtil;
+import com.trackify.trackify.util.TokenVault;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * User and settings access.
+ * {@link #findBySlackUserId} and {@link #getUserSettings} are served from Caffeine caches;
+ * every method that writes a user or settings document evicts exactly the affected entry,
+ * locally and on the other nodes through the {@link CacheInvalidationBus}.
+ * Sync state changes go to the small user_sync_state collection and leave the cached user alone.
+ * Settings writes read, modify and save inside the user's {@link UserMailboxes} mailbox, so they never
+ * interleave with a sync or another save for the same user.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String SETTINGS_OPERATION = "settings";
+    private static final String SYNC_STATE_COLLECTION = "user_sync_state";
+
     private final UserRepository userRepository;
     private final UserSettingsRepository userSettingsRepository;
+    private final UserSyncStateRepository userSyncStateRepository;
     private final EncryptionUtil encryptionUtil;
-
+    private final TokenVault tokenVault;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final SecondaryReadRepository secondaryReadRepository;
+    private final RecentWriteTracker recentWriteTracker;
+    private final WorkingHoursCalendar workingHoursCalendar;
+    private final DormancyService dormancyService;
+    private final UserMailboxes userMailboxes;
+    private final SyncSessionRegistry syncSessionRegistry;
+
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, unless = "#result == null")
     public Optional<User> findBySlackUserId(String slackUserId) {
         return userRepository.findBySlackUserId(slackUserId);
     }
 
-    public Optional<User> findBySpotifyUserId(String spotifyUserId) {
-        return userRepository.findBySpotifyUserId(spotifyUserId);
-    }
-
-    public List<User> findAllActiveUsers() {
-        return userRepository.findByActiveTrue();
+    /**
+     * Streams active users from a Mongo cursor, leaving out those dormant at the given time.
+     * Users come sorted by Spotify account, so identities linked to one account are adjacent.
+     * Close the stream (try-with-resources) when done.
+     */
+    public Stream<User> streamPollableUsers(LocalDateTime now) {
+        return userRepository.streamAwakeByActiveTrue(now);
     }
 
     @Transactional
@@ -41,21 +79,24 @@ public class UserService {
 
         if (existingUser.isPresent()) {
             User user = existingUser.get();
-            user.setSlackAccessToken(slackAccessToken);
+            user.setEncryptedSlackAccessToken(encryptionUtil.encrypt(slackAccessToken));
             user.setUpdatedAt(LocalDateTime.now());
             user.setActive(true);
             log.info("Updated existing user: {}", slackUserId);
-            return userRepository.save(user);
+            User savedUser = userRepository.save(user);
+            evictCachedUser(slackUserId);
+            return savedUser;
         } else {
             User newUser = User.builder()
                     .slackUserId(slackUserId)
                     .slackTeamId(slackTeamId)
-                    .slackAccessToken(slackAccessToken)
+                    .encryptedSlackAccessToken(encryptionUtil.encrypt(slackAccessToken))
                     .active(true)
                     .createdAt(LocalDateTime.now())
                     .updatedAt(LocalDateTime.now())
                     .build();
             User savedUser = userRepository.save(newUser);
+            evictCachedUser(slackUserId);
 
             // Create default settings for new user
             createDefaultSettings(savedUser.getId());
@@ -78,14 +119,18 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         log.info("Updated Spotify tokens for user: {}", userId);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        tokenVault.evictUser(userId);
+        evictCachedUser(user.getSlackUserId());
+        return savedUser;
     }
 
+    /**
+     * Served from the token vault, so the access token is decrypted once per token rather than per call.
+     */
     public String getDecryptedSpotifyAccessToken(User user) {
-        if (user.getEncryptedSpotifyAccessToken() == null) {
-            return null;
-        }
-        return encryptionUtil.decrypt(user.getEncryptedSpotifyAccessToken());
+        return tokenVault.reveal(TokenVault.SPOTIFY_ACCESS_SLOT + user.getId(),
+                user.getEncryptedSpotifyAccessToken(), user.getSpotifyTokenExpiresAt());
     }
 
     public String getDecryptedSpotifyRefreshToken(User user) {
@@ -95,6 +140,25 @@ public class UserService {
         return encryptionUtil.decrypt(user.getEncryptedSpotifyRefreshToken());
     }
 
+    public String getSlackAccessToken(User user) {
+        return revealSlackAccessToken(user.getId(), user.getEncryptedSlackAccessToken());
+    }
+
+    public String getSlackBotToken(User user) {
+        return revealSlackBotToken(user.getId(), user.getEncryptedSlackBotToken());
+    }
+
+    /**
+     * Vault lookups from a user ID and ciphertext alone, for callers that cache no User.
+     */
+    public String revealSlackAccessToken(String userId, String encryptedToken) {
+        return tokenVault.reveal(TokenVault.SLACK_USER_SLOT + userId, encryptedToken, null);
+    }
+
+    public String revealSlackBotToken(String userId, String encryptedToken) {
+        return tokenVault.reveal(TokenVault.SLACK_BOT_SLOT + userId, encryptedToken, null);
+    }
+
     public boolean isSpotifyTokenExpired(User user) {
         if (user.getSpotifyTokenExpiresAt() == null) {
             return true;
@@ -102,98 +166,118 @@ public class UserService {
         return LocalDateTime.now().plusMinutes(5).isAfter(user.getSpotifyTokenExpiresAt());
     }
 
-    @Transactional
-    public void updateCurrentlyPlaying(String userId, String songId, String title, String artist) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Returns the hot sync state for a user, or an empty state if nothing was synced yet.
+     */
+    public UserSyncState getSyncState(String userId) {
+        return userSyncStateRepository.findById(userId)
+                .orElseGet(() -> UserSyncState.builder().userId(userId).build());
+    }
 
-        user.setCurrentlyPlayingSongId(songId);
-        user.setCurrentlyPlayingSongTitle(title);
-        user.setCurrentlyPlayingArtist(artist);
-        user.setLastSyncedAt(LocalDateTime.now());
-        user.setUpdatedAt(LocalDateTime.now());
+    /**
+     * Sync states of a page of users in one query; users never synced get an empty state.
+     */
+    public Map<String, UserSyncState> getSyncStates(Collection<String> userIds) {
+        Map<String, UserSyncState> syncStates = new HashMap<>();
+        userSyncStateRepository.findAllById(userIds).forEach(state -> syncStates.put(state.getUserId(), state));
+        userIds.forEach(userId -> syncStates.computeIfAbsent(userId,
+                id -> UserSyncState.builder().userId(id).build()));
+        return syncStates;
+    }
 
-        userRepository.save(user);
+    public void updateCurrentlyPlaying(String userId, String songId, String title, String artist) {
+        userSyncStateRepository.updateCurrentlyPlaying(userId, songId, title, artist);
+        recentWriteTracker.markWritten(SYNC_STATE_COLLECTION, userId, false);
         log.debug("Updated currently playing for user {}: {} - {}", userId, title, artist);
     }
 
-    @Transactional
     public void clearCurrentlyPlaying(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        user.setCurrentlyPlayingSongId(null);
-        user.setCurrentlyPlayingSongTitle(null);
-        user.setCurrentlyPlayingArtist(null);
-        user.setUpdatedAt(LocalDateTime.now());
-
-        userRepository.save(user);
+        userSyncStateRepository.clearCurrentlyPlaying(userId);
+        recentWriteTracker.markWritten(SYNC_STATE_COLLECTION, userId, false);
         log.debug("Cleared currently playing for user {}", userId);
     }
 
-    @Transactional
     public void updateLastSetStatus(String userId, String statusText) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        user.setLastSetStatusText(statusText);
-        user.setManualStatusSet(false); // Clear manual flag when we set status
-        user.setUpdatedAt(LocalDateTime.now());
-
-        userRepository.save(user);
+        userSyncStateRepository.updateLastSetStatus(userId, statusText);
+        recentWriteTracker.markWritten(SYNC_STATE_COLLECTION, userId, false);
         log.debug("Updated last set status for user {}: {}", userId, statusText);
     }
 
-    @Transactional
     public void setManualStatusFlag(String userId, boolean manualStatusSet) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        user.setManualStatusSet(manualStatusSet);
-        user.setUpdatedAt(LocalDateTime.now());
-
-        userRepository.save(user);
+        userSyncStateRepository.setManualStatusSet(userId, manualStatusSet);
+        recentWriteTracker.markWritten(SYNC_STATE_COLLECTION, userId, false);
         log.debug("Set manual status flag for user {} to: {}", userId, manualStatusSet);
     }
 
-    @Transactional
-    public void updateWorkingHours(String userId, Integer startHourUtc, Integer endHourUtc, boolean enabled) {
-        UserSettings settings = userSettingsRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("User settings not found"));
-
-        settings.setSyncStartHour(startHourUtc);
-        settings.setSyncEndHour(endHourUtc);
-        settings.setWorkingHoursEnabled(enabled);
-        settings.setUpdatedAt(LocalDateTime.now());
-
-        userSettingsRepository.save(settings);
-        log.info("Updated working hours for user {}: {} - {} UTC (enabled: {})",
-                userId, startHourUtc, endHourUtc, enabled);
+    /**
+     * Stores working hours. With a known IANA zone the per-day local schedule drives syncing;
+     * the UTC start/end pair is kept for users without one.
+     */
+    public void updateWorkingHours(String userId, String timezoneId, List<WorkingHoursWindow> weeklySchedule,
+                                   Integer startHourUtc, Integer endHourUtc, boolean enabled) {
+        userMailboxes.run(userId, SETTINGS_OPERATION, () -> {
+            UserSettings settings = userSettingsRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("User settings not found"));
+
+            if (timezoneId != null) {
+                settings.setTimezoneId(timezoneId);
+            }
+            settings.setWeeklySchedule(weeklySchedule);
+            settings.setSyncStartHour(startHourUtc);
+            settings.setSyncEndHour(endHourUtc);
+            settings.setWorkingHoursEnabled(enabled);
+            settings.setUpdatedAt(LocalDateTime.now());
+
+            userSettingsRepository.save(settings);
+            evictCachedSettings(userId);
+            rescheduleWorkingHours(userId);
+            log.info("Updated working hours for user {}: {} - {} UTC, {} windows in {} (enabled: {})",
+                    userId, startHourUtc, endHourUtc, weeklySchedule == null ? 0 : weeklySchedule.size(),
+                    settings.getTimezoneId(), enabled);
+        });
     }
 
-    @Transactional
     public void updateAllowedDevices(String userId, List<String> deviceIds) {
-        UserSettings settings = userSettingsRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("User settings not found"));
+        userMailboxes.run(userId, SETTINGS_OPERATION, () -> {
+            UserSettings settings = userSettingsRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("User settings not found"));
+
+            settings.setAllowedDeviceIds(deviceIds);
+            settings.setUpdatedAt(LocalDateTime.now());
+
+            userSettingsRepository.save(settings);
+            evictCachedSettings(userId);
+            log.info("Updated allowed devices for user {}: {}", userId,
+                    deviceIds == null ? "all devices" : String.join(", ", deviceIds));
+        });
+    }
 
-        settings.setAllowedDeviceIds(deviceIds);
-        settings.setUpdatedAt(LocalDateTime.now());
+    public void updateDefaultEmoji(String userId, String emoji) {
+        userMailboxes.run(userId, SETTINGS_OPERATION, () -> {
+            UserSettings settings = userSettingsRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("User settings not found"));
 
-        userSettingsRepository.save(settings);
-        log.info("Updated allowed devices for user {}: {}", userId,
-                deviceIds == null ? "all devices" : String.join(", ", deviceIds));
+            settings.setDefaultEmoji(emoji);
+            settings.setUpdatedAt(LocalDateTime.now());
+
+            userSettingsRepository.save(settings);
+            evictCachedSettings(userId);
+            log.info("Updated default emoji for user {}: {}", userId, emoji);
+        });
     }
 
-    @Transactional
-    public void updateDefaultEmoji(String userId, String emoji) {
-        UserSettings settings = userSettingsRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("User settings not found"));
+    public void updateSyncEnabled(String userId, boolean enabled) {
+        userMailboxes.run(userId, SETTINGS_OPERATION, () -> {
+            UserSettings settings = userSettingsRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("User settings not found"));
 
-        settings.setDefaultEmoji(emoji);
-        settings.setUpdatedAt(LocalDateTime.now());
+            settings.setSyncEnabled(enabled);
+            settings.setUpdatedAt(LocalDateTime.now());
 
-        userSettingsRepository.save(settings);
-        log.info("Updated default emoji for user {}: {}", userId, emoji);
+            userSettingsRepository.save(settings);
+            evictCachedSettings(userId);
+            log.info("Set sync enabled for user {} to: {}", userId, enabled);
+        });
     }
 
     @Transactional
@@ -207,17 +291,97 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        evictCachedUser(user.getSlackUserId());
+        if (invalidated) {
+            syncSessionRegistry.remove(userId);
+        }
         log.info("Set token invalidated flag for user {} to: {}", userId, invalidated);
     }
 
+    @Cacheable(cacheNames = CacheConfig.USER_SETTINGS_CACHE, unless = "#result == null")
     public Optional<UserSettings> getUserSettings(String userId) {
         return userSettingsRepository.findByUserId(userId);
     }
 
-    @Transactional
     public UserSettings updateUserSettings(UserSettings settings) {
-        settings.setUpdatedAt(LocalDateTime.now());
-        return userSettingsRepository.save(settings);
+        return userMailboxes.call(settings.getUserId(), SETTINGS_OPERATION, () -> {
+            settings.setUpdatedAt(LocalDateTime.now());
+            UserSettings savedSettings = userSettingsRepository.save(settings);
+            evictCachedSettings(settings.getUserId());
+            rescheduleWorkingHours(settings.getUserId());
+            return savedSettings;
+        });
+    }
+
+    /**
+     * Display-only reads for App Home and /trackify status.
+     * Served from the cache when present; otherwise read from a secondary (when read routing is on)
+     * without populating the cache, falling back to the primary when the secondary has nothing yet.
+     * Documents written within the max staleness are always read from the primary.
+     */
+    public Optional<User> findBySlackUserIdForDisplay(String slackUserId) {
+        return cachedOrSecondary(CacheConfig.USERS_CACHE, slackUserId, User.class,
+                () -> secondaryReadRepository.findUserBySlackUserId(slackUserId),
+                () -> userRepository.findBySlackUserId(slackUserId));
+    }
+
+    public Optional<UserSettings> getUserSettingsForDisplay(String userId) {
+        return cachedOrSecondary(CacheConfig.USER_SETTINGS_CACHE, userId, UserSettings.class,
+                () -> secondaryReadRepository.findSettingsByUserId(userId),
+                () -> userSettingsRepository.findByUserId(userId));
+    }
+
+    public UserSyncState getSyncStateForDisplay(String userId) {
+        if (recentWriteTracker.isRecentlyWritten(SYNC_STATE_COLLECTION, userId)) {
+            return getSyncState(userId);
+        }
+        return secondaryReadRepository.findSyncState(userId)
+                .orElseGet(() -> getSyncState(userId));
+    }
+
+    private <T> Optional<T> cachedOrSecondary(String cacheName, String key, Class<T> type,
+                                              Supplier<Optional<T>> secondaryRead,
+                                              Supplier<Optional<T>> primaryRead) {
+        Cache cache = cacheManager.getCache(cacheName);
+        T cached = cache != null ? cache.get(key, type) : null;
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        if (recentWriteTracker.isRecentlyWritten(cacheName, key)) {
+            return primaryRead.get();
+        }
+
+        Optional<T> result = secondaryRead.get();
+        return result.isPresent() ? result : primaryRead.get();
+    }
+
+    /**
+     * Evicts a cached user. Called by anything that writes the users collection outside this service.
+     */
+    public void evictCachedUser(String slackUserId) {
+        evict(CacheConfig.USERS_CACHE, slackUserId);
+    }
+
+    public void evictCachedSettings(String userId) {
+        evict(CacheConfig.USER_SETTINGS_CACHE, userId);
+    }
+
+    /**
+     * Recompiles the user's working hours and wakes them, so the next cycle re-evaluates the new schedule.
+     */
+    private void rescheduleWorkingHours(String userId) {
+        workingHoursCalendar.refresh(userId);
+        dormancyService.wake(userId);
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+        cacheInvalidationBus.publish(cacheName, key);
+        recentWriteTracker.markWritten(cacheName, key, true);
     }
 
     private void createDefaultSettings(String userId) {
@@ -234,6 +398,7 @@ public class UserService {
                 .build();
 
         userSettingsRepository.save(settings);
+        evictCachedSettings(userId);
         log.info("Created default settings for user: {}", userId);
     }
 }
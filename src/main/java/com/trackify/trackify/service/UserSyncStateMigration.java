@@ -0,0 +1,97 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.model.UserSyncState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One-off migration of the sync fields that used to live on the users collection.
+ * Copies them into user_sync_state (without overwriting state written since) and unsets them on the user.
+ * Idempotent: once no user carries the legacy fields it finds nothing to do.
+ * Runs once every singleton exists but before the context is refreshed, so it finishes before the
+ * scheduler starts the first sync cycle.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+@RequiredArgsConstructor
+public class UserSyncStateMigration implements SmartInitializingSingleton {
+
+    private static final String USERS_COLLECTION = "users";
+    private static final List<String> LEGACY_FIELDS = List.of(
+            "currentlyPlayingSongId",
+            "currentlyPlayingSongTitle",
+            "currentlyPlayingArtist",
+            "lastSyncedAt",
+            "lastSetStatusText",
+            "manualStatusSet"
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${trackify.migration.user-sync-state.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        Query legacyUsers = Query.query(new Criteria().orOperator(LEGACY_FIELDS.stream()
+                .map(field -> Criteria.where(field).exists(true))
+                .toArray(Criteria[]::new)));
+        legacyUsers.fields().include("_id").include(LEGACY_FIELDS.toArray(String[]::new));
+
+        int migrated = 0;
+        try (Stream<Document> users = mongoTemplate.stream(legacyUsers, Document.class, USERS_COLLECTION)) {
+            Iterator<Document> cursor = users.iterator();
+            while (cursor.hasNext()) {
+                migrate(cursor.next());
+                migrated++;
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Migrated sync state of {} users to user_sync_state", migrated);
+        }
+    }
+
+    private void migrate(Document user) {
+        Object rawId = user.get("_id");
+        String userId = rawId.toString();
+
+        Update copy = new Update()
+                .setOnInsert("currentlyPlayingSongId", user.getString("currentlyPlayingSongId"))
+                .setOnInsert("currentlyPlayingSongTitle", user.getString("currentlyPlayingSongTitle"))
+                .setOnInsert("currentlyPlayingArtist", user.getString("currentlyPlayingArtist"))
+                .setOnInsert("lastSyncedAt", toLocalDateTime(user.getDate("lastSyncedAt")))
+                .setOnInsert("lastSetStatusText", user.getString("lastSetStatusText"))
+                .setOnInsert("manualStatusSet", Boolean.TRUE.equals(user.getBoolean("manualStatusSet")));
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)), copy, UserSyncState.class);
+
+        Update unset = new Update();
+        LEGACY_FIELDS.forEach(unset::unset);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(rawId)), unset, USERS_COLLECTION);
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
@@ -0,0 +1,341 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.WorkingHoursWindow;
+import com.trackify.trackify.repository.UserSettingsRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Compiled working-hours schedules for every user who has them.
+ * Each schedule (per-day windows in the user's IANA zone, or the legacy daily UTC window) is compiled
+ * into a 10,080-bit minute-of-week bitmap for the current UTC week, so DST shifts land on the right
+ * minutes. An inverted index of the minutes where windows open and close keeps the set of in-window
+ * users current as the clock advances, without re-evaluating every schedule each cycle.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkingHoursCalendar {
+
+    private static final int MINUTES_PER_WEEK = 7 * 24 * 60;
+
+    private static final String CACHE_NAME = "workingHours";
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
+
+    private final UserSettingsRepository userSettingsRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final Map<String, BitSet> schedules = new HashMap<>();
+    private final Map<Integer, Set<String>> opensAt = new HashMap<>();
+    private final Map<Integer, Set<String>> closesAt = new HashMap<>();
+    private final Set<String> inWindow = ConcurrentHashMap.newKeySet();
+    // Read without the lock by the sync workers; written only under it
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    private Instant compiledWeekStart;
+    private int currentMinute = -1;
+
+    @PostConstruct
+    public void registerRemoteRefresh() {
+        cacheInvalidationBus.register(CACHE_NAME, userId -> {
+            if (CacheInvalidationBus.ALL_KEYS.equals(userId)) {
+                rebuild();
+            } else {
+                reload(userId);
+            }
+        });
+    }
+
+    /**
+     * Moves the calendar to the given instant, applying every window that opened or closed since the
+     * last call. Recompiles all schedules when a new UTC week starts.
+     */
+    public synchronized void advance(Instant now) {
+        Instant weekStart = weekStart(now);
+        int minute = minuteOfWeek(now, weekStart);
+
+        if (!weekStart.equals(compiledWeekStart)) {
+            compileAll(weekStart, minute);
+            return;
+        }
+
+        for (int m = currentMinute + 1; m <= minute; m++) {
+            Set<String> opening = opensAt.get(m);
+            if (opening != null) {
+                inWindow.addAll(opening);
+            }
+            Set<String> closing = closesAt.get(m);
+            if (closing != null) {
+                inWindow.removeAll(closing);
+            }
+        }
+        currentMinute = minute;
+    }
+
+    /**
+     * Whether the user may be synced right now. Users without working hours are always in window.
+     */
+    public boolean isInWindow(String userId) {
+        return !scheduled.contains(userId) || inWindow.contains(userId);
+    }
+
+    /**
+     * When the user's next window opens after the current minute, or null if they have no working hours.
+     * A schedule with no further window this week wakes at the week boundary, where it is recompiled.
+     */
+    public synchronized Instant nextWindowOpen(String userId) {
+        BitSet minutes = schedules.get(userId);
+        if (minutes == null || compiledWeekStart == null) {
+            return null;
+        }
+
+        // Skip the rest of a window the user is already in: its later minutes are not openings
+        int from = minutes.get(currentMinute) ? minutes.nextClearBit(currentMinute) : currentMinute + 1;
+        int next = minutes.nextSetBit(from);
+        return next >= 0 && next < MINUTES_PER_WEEK
+                ? compiledWeekStart.plus(Duration.ofMinutes(next))
+                : compiledWeekStart.plus(Duration.ofDays(7));
+    }
+
+    public int scheduledCount() {
+        return scheduled.size();
+    }
+
+    public int inWindowCount() {
+        return inWindow.size();
+    }
+
+    /**
+     * Recompiles one user's schedule after their settings changed, here and on the other nodes.
+     */
+    public void refresh(String userId) {
+        reload(userId);
+        cacheInvalidationBus.publish(CACHE_NAME, userId);
+    }
+
+    /**
+     * Recompiles every schedule from the database, e.g. after a bulk import.
+     */
+    public synchronized void rebuild() {
+        Instant now = Instant.now();
+        Instant weekStart = weekStart(now);
+        compileAll(weekStart, minuteOfWeek(now, weekStart));
+    }
+
+    private synchronized void reload(String userId) {
+        if (compiledWeekStart == null) {
+            // Nothing compiled yet; the first advance() loads everyone
+            return;
+        }
+
+        remove(userId);
+        userSettingsRepository.findByUserId(userId).ifPresent(this::add);
+    }
+
+    private void compileAll(Instant weekStart, int minute) {
+        long startedAt = System.currentTimeMillis();
+
+        schedules.clear();
+        opensAt.clear();
+        closesAt.clear();
+        inWindow.clear();
+        scheduled.clear();
+        compiledWeekStart = weekStart;
+        currentMinute = minute;
+
+        try (Stream<UserSettings> settings = userSettingsRepository.streamByWorkingHoursEnabledTrue()) {
+            settings.forEach(this::add);
+        }
+
+        log.info("Compiled working hours of {} users for the week of {} in {} ms ({} in window)",
+                schedules.size(), weekStart, System.currentTimeMillis() - startedAt, inWindow.size());
+    }
+
+    private void add(UserSettings settings) {
+        BitSet minutes = compile(settings, compiledWeekStart);
+        if (minutes == null) {
+            return;
+        }
+
+        String userId = settings.getUserId();
+        schedules.put(userId, minutes);
+        scheduled.add(userId);
+        forEachEdge(minutes, (minute, opening) ->
+                (opening ? opensAt : closesAt).computeIfAbsent(minute, key -> new HashSet<>()).add(userId));
+        if (minutes.get(currentMinute)) {
+            inWindow.add(userId);
+        }
+    }
+
+    private void remove(String userId) {
+        BitSet minutes = schedules.remove(userId);
+        scheduled.remove(userId);
+        inWindow.remove(userId);
+        if (minutes == null) {
+            return;
+        }
+
+        forEachEdge(minutes, (minute, opening) -> {
+            Map<Integer, Set<String>> index = opening ? opensAt : closesAt;
+            Set<String> users = index.get(minute);
+            if (users != null && users.remove(userId) && users.isEmpty()) {
+                index.remove(minute);
+            }
+        });
+    }
+
+    /**
+     * Edges inside the week only: the week boundary itself is handled by recompiling.
+     * Jumps from run to run, so the cost follows the number of windows rather than the minutes in a week.
+     */
+    private void forEachEdge(BitSet minutes, EdgeConsumer consumer) {
+        int open = minutes.nextSetBit(0);
+        while (open >= 0 && open < MINUTES_PER_WEEK) {
+            int close = minutes.nextClearBit(open);
+            if (open > 0) {
+                consumer.accept(open, true);
+            }
+            if (close >= MINUTES_PER_WEEK) {
+                return;
+            }
+            consumer.accept(close, false);
+            open = minutes.nextSetBit(close);
+        }
+    }
+
+    /**
+     * Compiles a user's schedule into the minutes of the given UTC week, or null if the user is not restricted.
+     */
+    private BitSet compile(UserSettings settings, Instant weekStart) {
+        if (!settings.isWorkingHoursEnabled()) {
+            return null;
+        }
+
+        List<WorkingHoursWindow> windows;
+        ZoneId zone;
+        if (settings.getWeeklySchedule() != null && !settings.getWeeklySchedule().isEmpty()) {
+            windows = settings.getWeeklySchedule();
+            zone = resolveZone(settings);
+        } else if (settings.getSyncStartHour() != null && settings.getSyncEndHour() != null) {
+            windows = legacyDailyWindows(settings.getSyncStartHour(), settings.getSyncEndHour());
+            zone = ZoneOffset.UTC;
+        } else {
+            log.debug("Working hours enabled but not configured for user {}, syncing 24/7", settings.getUserId());
+            return null;
+        }
+
+        BitSet minutes = new BitSet(MINUTES_PER_WEEK);
+        Instant weekEnd = weekStart.plus(Duration.ofDays(7));
+        // Local dates around the UTC week, so windows spilling across its edges are included
+        LocalDate firstDate = LocalDate.ofInstant(weekStart, zone).minusDays(1);
+        LocalDate lastDate = LocalDate.ofInstant(weekEnd, zone);
+
+        for (WorkingHoursWindow window : windows) {
+            LocalTime start = parseTime(window.getStart());
+            LocalTime end = parseTime(window.getEnd());
+            if (window.getDayOfWeek() == null || start == null || end == null) {
+                log.warn("Skipping invalid working hours window {} for user {}", window, settings.getUserId());
+                continue;
+            }
+
+            for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+                if (date.getDayOfWeek() != window.getDayOfWeek()) {
+                    continue;
+                }
+                // atZone resolves DST gaps and overlaps the way a wall clock would
+                Instant from = ZonedDateTime.of(date, start, zone).toInstant();
+                Instant to = ZonedDateTime.of(end.isAfter(start) ? date : date.plusDays(1), end, zone).toInstant();
+                mark(minutes, weekStart, weekEnd, from, to);
+            }
+        }
+        return minutes;
+    }
+
+    private void mark(BitSet minutes, Instant weekStart, Instant weekEnd, Instant from, Instant to) {
+        Instant clippedFrom = from.isBefore(weekStart) ? weekStart : from;
+        Instant clippedTo = to.isAfter(weekEnd) ? weekEnd : to;
+        if (!clippedFrom.isBefore(clippedTo)) {
+            return;
+        }
+        minutes.set((int) Duration.between(weekStart, clippedFrom).toMinutes(),
+                (int) Duration.between(weekStart, clippedTo).toMinutes());
+    }
+
+    /**
+     * The legacy start/end pair applied every day. The old check included the end minute, so this does too.
+     */
+    private List<WorkingHoursWindow> legacyDailyWindows(int startHHMM, int endHHMM) {
+        String start = String.format("%02d:%02d", startHHMM / 100, startHHMM % 100);
+        String end = LocalTime.of(endHHMM / 100, endHHMM % 100).plusMinutes(1).format(TIME_FORMATTER);
+        return EnumSet.allOf(DayOfWeek.class).stream()
+                .map(day -> WorkingHoursWindow.builder().dayOfWeek(day).start(start).end(end).build())
+                .toList();
+    }
+
+    private ZoneId resolveZone(UserSettings settings) {
+        if (settings.getTimezoneId() != null) {
+            try {
+                return ZoneId.of(settings.getTimezoneId());
+            } catch (DateTimeException e) {
+                log.warn("Unknown timezone '{}' for user {}, falling back to the stored offset",
+                        settings.getTimezoneId(), settings.getUserId());
+            }
+        }
+        return settings.getTimezoneOffsetSeconds() != null
+                ? ZoneOffset.ofTotalSeconds(settings.getTimezoneOffsetSeconds())
+                : ZoneOffset.UTC;
+    }
+
+    private LocalTime parseTime(String time) {
+        if (time == null) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(time, TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Instant weekStart(Instant now) {
+        return now.atZone(ZoneOffset.UTC)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .truncatedTo(ChronoUnit.DAYS)
+                .toInstant();
+    }
+
+    private static int minuteOfWeek(Instant now, Instant weekStart) {
+        return (int) Duration.between(weekStart, now).toMinutes();
+    }
+
+    @FunctionalInterface
+    private interface EdgeConsumer {
+        void accept(int minute, boolean opening);
+    }
+}
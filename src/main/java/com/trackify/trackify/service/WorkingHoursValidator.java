@@ -61,6 +61,16 @@ public class WorkingHoursValidator {
         return new Integer[]{utcStartHour, utcEndHour};
     }
 
+    /**
+     * Validates a local start/end pair without touching the user's settings.
+     * Offsets preserve equality, so equal local times are exactly the ones that collide in UTC.
+     */
+    public boolean isValidLocalRange(String localStartTime, String localEndTime) {
+        return isValidTimeFormat(localStartTime)
+                && isValidTimeFormat(localEndTime)
+                && !localStartTime.equals(localEndTime);
+    }
+
     /**
      * Validates time string is in HH:mm format.
      */
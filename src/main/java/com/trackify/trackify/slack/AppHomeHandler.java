@@ -1,19 +1,24 @@
 package com.trackify.trackify.slack;
 
 import com.slack.api.bolt.App;
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.SlackApiException;
 import com.slack.api.model.event.AppHomeOpenedEvent;
 import com.slack.api.model.view.View;
-import com.trackify.trackify.constants.AppConstants;
 import com.trackify.trackify.model.User;
 import com.trackify.trackify.model.UserSettings;
 import com.trackify.trackify.model.SpotifyDevice;
+import com.trackify.trackify.model.WorkingHoursWindow;
 import com.trackify.trackify.service.*;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.DayOfWeek;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,6 +31,7 @@ import static com.slack.api.model.view.Views.*;
 /**
  * Handles Slack App Home events and interactions.
  * Registers event listeners for App Home tab and button actions.
+ * Every handler acks immediately; the actual work runs on the {@link InteractionExecutor}.
  */
 @Slf4j
 @Component
@@ -39,6 +45,10 @@ public class AppHomeHandler {
     private final SpotifyService spotifyService;
     private final WorkingHoursValidator workingHoursValidator;
     private final TimezoneService timezoneService;
+    private final SlackService slackService;
+    private final InteractionExecutor interactionExecutor;
+    private final HomeViewRefreshService homeViewRefreshService;
+    private final ErrorMessageService errorMessageService;
 
     @PostConstruct
     public void registerHandlers() {
@@ -59,125 +69,94 @@ public class AppHomeHandler {
 
     private void registerAppHomeOpenedEvent() {
         slackApp.event(AppHomeOpenedEvent.class, (payload, ctx) -> {
-            try {
-                String userId = payload.getEvent().getUser();
-                log.debug("App Home opened by user: {}", userId);
-
-                String botToken = ctx.getBotToken();
+            String userId = payload.getEvent().getUser();
+            String botToken = ctx.getBotToken();
+            log.debug("App Home opened by user: {}", userId);
+
+            homeViewRefreshService.recordHomeOpened(userId, ctx.getTeamId(), botToken);
+            // If this is dropped the tab keeps its last published view until the next refresh
+            interactionExecutor.submit("app_home_opened " + userId, () -> {
+                musicSyncService.wakeUp(userId);
                 appHomeService.publishHomeView(userId, botToken);
+            });
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling app_home_opened event", e);
-                return ctx.ack();
-            }
+            return ctx.ack();
         });
     }
 
     private void registerEnableSyncAction() {
         slackApp.blockAction("enable_sync", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Enable Sync", userId);
-
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
-
-                    if (settingsOpt.isPresent()) {
-                        UserSettings settings = settingsOpt.get();
-                        settings.setSyncEnabled(true);
-                        userService.updateUserSettings(settings);
-
-                        appHomeService.publishHomeView(userId, ctx.getBotToken());
-                    }
-                }
+            String userId = req.getPayload().getUser().getId();
+            String botToken = ctx.getBotToken();
+            log.info("User {} clicked Enable Sync", userId);
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling enable_sync action", e);
-                return ctx.ack();
+            if (!interactionExecutor.submit("enable_sync " + userId,
+                    () -> updateSyncEnabled(userId, true, botToken))) {
+                notifyBusy(ctx.client(), userId);
             }
+
+            return ctx.ack();
         });
     }
 
     private void registerDisableSyncAction() {
         slackApp.blockAction("disable_sync", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Disable Sync", userId);
-
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
-
-                    if (settingsOpt.isPresent()) {
-                        UserSettings settings = settingsOpt.get();
-                        settings.setSyncEnabled(false);
-                        userService.updateUserSettings(settings);
+            String userId = req.getPayload().getUser().getId();
+            String botToken = ctx.getBotToken();
+            log.info("User {} clicked Disable Sync", userId);
 
-                        appHomeService.publishHomeView(userId, ctx.getBotToken());
-                    }
-                }
-
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling disable_sync action", e);
-                return ctx.ack();
+            if (!interactionExecutor.submit("disable_sync " + userId,
+                    () -> updateSyncEnabled(userId, false, botToken))) {
+                notifyBusy(ctx.client(), userId);
             }
+
+            return ctx.ack();
         });
     }
 
-    private void registerManualSyncAction() {
-        slackApp.blockAction("manual_sync", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Sync Now", userId);
+    private void updateSyncEnabled(String userId, boolean enabled, String botToken) {
+        Optional<User> userOpt = userService.findBySlackUserId(userId);
+        if (userOpt.isEmpty()) {
+            return;
+        }
 
-                musicSyncService.manualSync(userId);
+        userService.updateSyncEnabled(userOpt.get().getId(), enabled);
 
-                appHomeService.publishHomeView(userId, ctx.getBotToken());
+        appHomeService.publishHomeView(userId, botToken);
+    }
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling manual_sync action", e);
-                return ctx.ack();
+    private void registerManualSyncAction() {
+        slackApp.blockAction("manual_sync", (req, ctx) -> {
+            String userId = req.getPayload().getUser().getId();
+            String botToken = ctx.getBotToken();
+            log.info("User {} clicked Sync Now", userId);
+
+            boolean accepted = interactionExecutor.submit("manual_sync " + userId, () -> {
+                try {
+                    musicSyncService.manualSync(userId);
+                } catch (Exception e) {
+                    log.error("Error handling manual_sync action", e);
+                }
+                appHomeService.publishHomeView(userId, botToken);
+            });
+            if (!accepted) {
+                notifyBusy(ctx.client(), userId);
             }
+
+            return ctx.ack();
         });
     }
 
     private void registerConfigureWorkingHoursAction() {
         slackApp.blockAction("configure_working_hours", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Configure Working Hours", userId);
-
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isEmpty()) {
-                    return ctx.ack();
-                }
-
-                User user = userOpt.get();
-                Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
-                if (settingsOpt.isEmpty()) {
-                    return ctx.ack();
-                }
+            String userId = req.getPayload().getUser().getId();
+            String triggerId = req.getPayload().getTriggerId();
+            log.info("User {} clicked Configure Working Hours", userId);
 
-                UserSettings settings = settingsOpt.get();
-                View modalView = buildWorkingHoursModal(settings);
-
-                ctx.client().viewsOpen(r -> r
-                        .triggerId(req.getPayload().getTriggerId())
-                        .view(modalView)
-                );
+            openModal(ctx.client(), userId, triggerId, "configure_working_hours", "Working Hours",
+                    () -> findSettings(userId).map(this::buildWorkingHoursModal).orElse(null));
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling configure_working_hours action", e);
-                return ctx.ack();
-            }
+            return ctx.ack();
         });
     }
 
@@ -185,7 +164,10 @@ public class AppHomeHandler {
         final String startTimeLocal;
         final String endTimeLocal;
 
-        if (settings.getSyncStartHour() != null &&
+        if (settings.getWeeklySchedule() != null && !settings.getWeeklySchedule().isEmpty()) {
+            startTimeLocal = settings.getWeeklySchedule().getFirst().getStart();
+            endTimeLocal = settings.getWeeklySchedule().getFirst().getEnd();
+        } else if (settings.getSyncStartHour() != null &&
             settings.getSyncEndHour() != null &&
             settings.getTimezoneOffsetSeconds() != null) {
             startTimeLocal = timezoneService.convertUtcToLocal(
@@ -253,108 +235,115 @@ public class AppHomeHandler {
 
     private void registerWorkingHoursModalSubmission() {
         slackApp.viewSubmission("working_hours_modal", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} submitted working hours modal", userId);
-
-                Map<String, Map<String, com.slack.api.model.view.ViewState.Value>> stateValues =
-                        req.getPayload().getView().getState().getValues();
-
-                boolean workingHoursEnabled = false;
-                if (stateValues.containsKey("working_hours_enabled")) {
-                    var enabledValue = stateValues.get("working_hours_enabled").get("enabled_checkbox");
-                    if (enabledValue != null && enabledValue.getSelectedOptions() != null &&
-                        !enabledValue.getSelectedOptions().isEmpty()) {
-                        workingHoursEnabled = true;
-                    }
+            String userId = req.getPayload().getUser().getId();
+            String botToken = ctx.getBotToken();
+            log.info("User {} submitted working hours modal", userId);
+
+            Map<String, Map<String, com.slack.api.model.view.ViewState.Value>> stateValues =
+                    req.getPayload().getView().getState().getValues();
+
+            boolean enabled = false;
+            if (stateValues.containsKey("working_hours_enabled")) {
+                var enabledValue = stateValues.get("working_hours_enabled").get("enabled_checkbox");
+                if (enabledValue != null && enabledValue.getSelectedOptions() != null &&
+                    !enabledValue.getSelectedOptions().isEmpty()) {
+                    enabled = true;
                 }
+            }
+            final boolean workingHoursEnabled = enabled;
 
-                String startTime = stateValues.get("start_time").get("start_time_picker").getSelectedTime();
-                String endTime = stateValues.get("end_time").get("end_time_picker").getSelectedTime();
+            String startTime = stateValues.get("start_time").get("start_time_picker").getSelectedTime();
+            String endTime = stateValues.get("end_time").get("end_time_picker").getSelectedTime();
 
-                log.debug("Working hours submission: enabled={}, start={}, end={}",
-                        workingHoursEnabled, startTime, endTime);
+            log.debug("Working hours submission: enabled={}, start={}, end={}",
+                    workingHoursEnabled, startTime, endTime);
 
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isEmpty()) {
-                    return ctx.ack();
-                }
+            // Validation errors have to go back in the ack, so only the DB-free checks run here
+            if (!workingHoursValidator.isValidLocalRange(startTime, endTime)) {
+                return ctx.ack(r -> r.responseAction("errors")
+                        .errors(Map.of("end_time", "Start and end times cannot be the same")));
+            }
 
-                User user = userOpt.get();
-                Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
-                if (settingsOpt.isEmpty()) {
-                    return ctx.ack();
+            boolean accepted = interactionExecutor.submit("working_hours_modal " + userId, () -> {
+                try {
+                    saveWorkingHours(userId, startTime, endTime, workingHoursEnabled, ctx.client());
+                    appHomeService.publishHomeView(userId, botToken);
+                } catch (Exception e) {
+                    log.error("Error handling working hours modal submission", e);
                 }
+            });
+            if (!accepted) {
+                // Keeps the modal open so nothing the user entered is lost
+                return ctx.ack(r -> r.responseAction("errors")
+                        .errors(Map.of("start_time", errorMessageService.buildBusyMessage())));
+            }
+
+            return ctx.ack();
+        });
+    }
 
-                UserSettings settings = settingsOpt.get();
+    private void saveWorkingHours(String userId, String startTime, String endTime, boolean enabled,
+                                  MethodsClient client) throws IOException, SlackApiException {
+        Optional<User> userOpt = userService.findBySlackUserId(userId);
+        if (userOpt.isEmpty()) {
+            return;
+        }
 
-                Integer timezoneOffset = settings.getTimezoneOffsetSeconds();
-                if (timezoneOffset == null) {
-                    log.warn("User {} has no timezone offset, cannot configure working hours", userId);
-                    return ctx.ack(r -> r.responseAction("errors")
-                            .errors(Map.of("start_time", "Timezone not available. Please reconnect your account.")));
-                }
+        User user = userOpt.get();
+        Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
+        if (settingsOpt.isEmpty()) {
+            return;
+        }
 
-                Integer[] convertedTimes = workingHoursValidator.validateAndConvert(
-                        startTime, endTime, timezoneOffset);
+        String timezoneId = settingsOpt.get().getTimezoneId();
+        if (timezoneId == null) {
+            // Installed before zones were stored: look it up once, it is saved with the schedule
+            timezoneId = slackService.getUserTimezoneId(userService.getSlackAccessToken(user), userId);
+        }
 
-                if (convertedTimes == null) {
-                    return ctx.ack(r -> r.responseAction("errors")
-                            .errors(Map.of("end_time", "Start and end times cannot be the same")));
-                }
+        Integer timezoneOffset = timezoneId != null
+                ? timezoneService.currentOffsetSeconds(timezoneId)
+                : settingsOpt.get().getTimezoneOffsetSeconds();
+        if (timezoneOffset == null) {
+            log.warn("User {} has no timezone offset, cannot configure working hours", userId);
+            client.chatPostMessage(r -> r
+                    .channel(userId)
+                    .text(":warning: Your working hours were not saved because your timezone is not available. " +
+                            "Please reconnect your account.")
+            );
+            return;
+        }
 
-                userService.updateWorkingHours(
-                        user.getId(),
-                        convertedTimes[0],
-                        convertedTimes[1],
-                        workingHoursEnabled
-                );
+        Integer[] convertedTimes = workingHoursValidator.validateAndConvert(startTime, endTime, timezoneOffset);
+        if (convertedTimes == null) {
+            log.warn("Working hours for user {} could not be converted to UTC", userId);
+            return;
+        }
 
-                log.info("Updated working hours for user {}: enabled={}, {}:{} - {}:{} UTC",
-                        userId, workingHoursEnabled,
-                        convertedTimes[0] / 100, convertedTimes[0] % 100,
-                        convertedTimes[1] / 100, convertedTimes[1] % 100);
+        // The modal sets one range for every day; the schedule itself supports a window per day
+        List<WorkingHoursWindow> weeklySchedule = timezoneId == null ? null : Arrays.stream(DayOfWeek.values())
+                .map(day -> WorkingHoursWindow.builder().dayOfWeek(day).start(startTime).end(endTime).build())
+                .toList();
 
-                appHomeService.publishHomeView(userId, ctx.getBotToken());
+        userService.updateWorkingHours(user.getId(), timezoneId, weeklySchedule,
+                convertedTimes[0], convertedTimes[1], enabled);
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling working hours modal submission", e);
-                return ctx.ack();
-            }
-        });
+        log.info("Updated working hours for user {}: enabled={}, {}:{} - {}:{} UTC",
+                userId, enabled,
+                convertedTimes[0] / 100, convertedTimes[0] % 100,
+                convertedTimes[1] / 100, convertedTimes[1] % 100);
     }
 
     private void registerConfigureEmojiAction() {
         slackApp.blockAction("configure_emoji", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Configure Emoji", userId);
+            String userId = req.getPayload().getUser().getId();
+            String triggerId = req.getPayload().getTriggerId();
+            log.info("User {} clicked Configure Emoji", userId);
 
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isEmpty()) {
-                    return ctx.ack();
-                }
+            openModal(ctx.client(), userId, triggerId, "configure_emoji", "Configure Emoji",
+                    () -> findSettings(userId).map(this::buildEmojiModal).orElse(null));
 
-                User user = userOpt.get();
-                Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
-                if (settingsOpt.isEmpty()) {
-                    return ctx.ack();
-                }
-
-                UserSettings settings = settingsOpt.get();
-                View modalView = buildEmojiModal(settings);
-
-                ctx.client().viewsOpen(r -> r
-                        .triggerId(req.getPayload().getTriggerId())
-                        .view(modalView)
-                );
-
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling configure_emoji action", e);
-                return ctx.ack();
-            }
+            return ctx.ack();
         });
     }
 
@@ -388,75 +377,121 @@ public class AppHomeHandler {
 
     private void registerEmojiModalSubmission() {
         slackApp.viewSubmission("emoji_modal", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} submitted emoji modal", userId);
-
-                Map<String, Map<String, com.slack.api.model.view.ViewState.Value>> stateValues =
-                        req.getPayload().getView().getState().getValues();
-
-                String emoji = stateValues.get("emoji_input").get("emoji_value").getValue();
-
-                if (emoji == null || emoji.trim().isEmpty()) {
-                    emoji = ":musical_note:";
-                }
-
-                log.debug("Emoji submission: emoji={}", emoji);
+            String userId = req.getPayload().getUser().getId();
+            String botToken = ctx.getBotToken();
+            log.info("User {} submitted emoji modal", userId);
 
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isEmpty()) {
-                    return ctx.ack();
-                }
+            Map<String, Map<String, com.slack.api.model.view.ViewState.Value>> stateValues =
+                    req.getPayload().getView().getState().getValues();
 
-                User user = userOpt.get();
+            String value = stateValues.get("emoji_input").get("emoji_value").getValue();
+            String emoji = value == null || value.trim().isEmpty() ? ":musical_note:" : value.trim();
 
-                userService.updateDefaultEmoji(user.getId(), emoji.trim());
+            log.debug("Emoji submission: emoji={}", emoji);
 
-                log.info("Updated emoji for user {}: {}", userId, emoji);
+            boolean accepted = interactionExecutor.submit("emoji_modal " + userId, () -> {
+                try {
+                    Optional<User> userOpt = userService.findBySlackUserId(userId);
+                    if (userOpt.isEmpty()) {
+                        return;
+                    }
 
-                appHomeService.publishHomeView(userId, ctx.getBotToken());
+                    userService.updateDefaultEmoji(userOpt.get().getId(), emoji);
+                    log.info("Updated emoji for user {}: {}", userId, emoji);
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling emoji modal submission", e);
-                return ctx.ack();
+                    appHomeService.publishHomeView(userId, botToken);
+                } catch (Exception e) {
+                    log.error("Error handling emoji modal submission", e);
+                }
+            });
+            if (!accepted) {
+                return ctx.ack(r -> r.responseAction("errors")
+                        .errors(Map.of("emoji_input", errorMessageService.buildBusyMessage())));
             }
+
+            return ctx.ack();
         });
     }
 
     private void registerConfigureDevicesAction() {
         slackApp.blockAction("configure_devices", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Configure Devices", userId);
+            String userId = req.getPayload().getUser().getId();
+            String triggerId = req.getPayload().getTriggerId();
+            log.info("User {} clicked Configure Devices", userId);
 
+            // Spotify may take a while to list devices, so this one in particular cannot wait for the trigger
+            openModal(ctx.client(), userId, triggerId, "configure_devices", "Select Devices", () -> {
                 Optional<User> userOpt = userService.findBySlackUserId(userId);
                 if (userOpt.isEmpty()) {
-                    return ctx.ack();
+                    return null;
                 }
 
                 User user = userOpt.get();
                 Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
                 if (settingsOpt.isEmpty()) {
-                    return ctx.ack();
+                    return null;
                 }
 
                 List<SpotifyDevice> devices = spotifyService.getAvailableDevices(user);
+                return buildDevicesModal(settingsOpt.get(), devices);
+            });
 
-                UserSettings settings = settingsOpt.get();
-                View modalView = buildDevicesModal(settings, devices);
+            return ctx.ack();
+        });
+    }
 
-                ctx.client().viewsOpen(r -> r
-                        .triggerId(req.getPayload().getTriggerId())
-                        .view(modalView)
-                );
+    /**
+     * Opens a loading modal right away, while the trigger_id is still valid (it expires 3 seconds after
+     * the click), then builds the real modal on the {@link InteractionExecutor} and swaps it in with
+     * views.update. A null modal means the user's settings could not be found.
+     */
+    private void openModal(MethodsClient client, String userId, String triggerId, String action, String title,
+                           ModalContent content) {
+        try {
+            var openResponse = client.viewsOpen(r -> r
+                    .triggerId(triggerId)
+                    .view(buildMessageModal(title, ":hourglass_flowing_sand: Loading..."))
+            );
+            if (!openResponse.isOk()) {
+                log.warn("Failed to open {} modal for user {}: {}", action, userId, openResponse.getError());
+                return;
+            }
+
+            String viewId = openResponse.getView().getId();
+            String hash = openResponse.getView().getHash();
+            boolean accepted = interactionExecutor.submit(action + " " + userId, () -> {
+                try {
+                    View modalView = content.build();
+                    View view = modalView != null
+                            ? modalView
+                            : buildMessageModal(title, ":x: Your Trackify settings could not be found.");
+                    client.viewsUpdate(r -> r.viewId(viewId).hash(hash).view(view));
+                } catch (Exception e) {
+                    log.error("Error handling {} action", action, e);
+                }
+            });
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling configure_devices action", e);
-                return ctx.ack();
+            if (!accepted) {
+                client.viewsUpdate(r -> r
+                        .viewId(viewId)
+                        .hash(hash)
+                        .view(buildMessageModal(title, errorMessageService.buildBusyMessage()))
+                );
             }
-        });
+        } catch (Exception e) {
+            log.error("Error handling {} action", action, e);
+        }
+    }
+
+    private View buildMessageModal(String title, String message) {
+        return view(view -> view
+                .type("modal")
+                .title(viewTitle(t -> t.type("plain_text").text(title)))
+                .close(viewClose(close -> close.type("plain_text").text("Close")))
+                .blocks(asBlocks(
+                        section(section -> section.text(markdownText(message)))
+                ))
+        );
     }
 
     private View buildDevicesModal(UserSettings settings, List<SpotifyDevice> devices) {
@@ -526,79 +561,109 @@ public class AppHomeHandler {
 
     private void registerDevicesModalSubmission() {
         slackApp.viewSubmission("devices_modal", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} submitted devices modal", userId);
-
-                Map<String, Map<String, com.slack.api.model.view.ViewState.Value>> stateValues =
-                        req.getPayload().getView().getState().getValues();
-
-                List<String> selectedDeviceIds = new ArrayList<>();
-                if (stateValues.containsKey("devices_selection")) {
-                    var devicesValue = stateValues.get("devices_selection").get("devices_checkboxes");
-                    if (devicesValue != null && devicesValue.getSelectedOptions() != null) {
-                        for (var option : devicesValue.getSelectedOptions()) {
-                            selectedDeviceIds.add(option.getValue());
-                        }
+            String userId = req.getPayload().getUser().getId();
+            String botToken = ctx.getBotToken();
+            log.info("User {} submitted devices modal", userId);
+
+            Map<String, Map<String, com.slack.api.model.view.ViewState.Value>> stateValues =
+                    req.getPayload().getView().getState().getValues();
+
+            List<String> selectedDeviceIds = new ArrayList<>();
+            if (stateValues.containsKey("devices_selection")) {
+                var devicesValue = stateValues.get("devices_selection").get("devices_checkboxes");
+                if (devicesValue != null && devicesValue.getSelectedOptions() != null) {
+                    for (var option : devicesValue.getSelectedOptions()) {
+                        selectedDeviceIds.add(option.getValue());
                     }
                 }
+            }
 
-                log.debug("Devices submission: selected={}", selectedDeviceIds);
-
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isEmpty()) {
-                    return ctx.ack();
-                }
-
-                User user = userOpt.get();
+            log.debug("Devices submission: selected={}", selectedDeviceIds);
 
-                userService.updateAllowedDevices(user.getId(),
-                        selectedDeviceIds.isEmpty() ? null : selectedDeviceIds);
+            boolean accepted = interactionExecutor.submit("devices_modal " + userId, () -> {
+                try {
+                    Optional<User> userOpt = userService.findBySlackUserId(userId);
+                    if (userOpt.isEmpty()) {
+                        return;
+                    }
 
-                log.info("Updated allowed devices for user {}: {}",
-                        userId, selectedDeviceIds.isEmpty() ? "all devices" : selectedDeviceIds);
+                    userService.updateAllowedDevices(userOpt.get().getId(),
+                            selectedDeviceIds.isEmpty() ? null : selectedDeviceIds);
 
-                appHomeService.publishHomeView(userId, ctx.getBotToken());
+                    log.info("Updated allowed devices for user {}: {}",
+                            userId, selectedDeviceIds.isEmpty() ? "all devices" : selectedDeviceIds);
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling devices modal submission", e);
-                return ctx.ack();
+                    appHomeService.publishHomeView(userId, botToken);
+                } catch (Exception e) {
+                    log.error("Error handling devices modal submission", e);
+                }
+            });
+            if (!accepted) {
+                return ctx.ack(r -> r.responseAction("errors")
+                        .errors(Map.of("devices_selection", errorMessageService.buildBusyMessage())));
             }
+
+            return ctx.ack();
         });
     }
 
     private void registerReconnectSpotifyAction() {
         slackApp.blockAction("reconnect_spotify", (req, ctx) -> {
-            try {
-                String userId = req.getPayload().getUser().getId();
-                log.info("User {} clicked Reconnect Spotify", userId);
+            String userId = req.getPayload().getUser().getId();
+            log.info("User {} clicked Reconnect Spotify", userId);
+
+            boolean accepted = interactionExecutor.submit("reconnect_spotify " + userId, () -> {
+                try {
+                    Optional<User> userOpt = userService.findBySlackUserId(userId);
+                    if (userOpt.isEmpty()) {
+                        return;
+                    }
 
-                Optional<User> userOpt = userService.findBySlackUserId(userId);
-                if (userOpt.isEmpty()) {
-                    return ctx.ack();
+                    String reconnectUrl = spotifyService.buildConnectLink(userOpt.get().getId());
+                    String message = String.format(
+                            ":warning: *Your Spotify connection needs to be renewed*\n\n" +
+                            "Please click the link below to reconnect your Spotify account:\n\n" +
+                            "<%s|Reconnect Spotify Account>",
+                            reconnectUrl
+                    );
+
+                    ctx.client().chatPostMessage(r -> r
+                            .channel(userId)
+                            .text(message)
+                    );
+                } catch (Exception e) {
+                    log.error("Error handling reconnect_spotify action", e);
                 }
+            });
+            if (!accepted) {
+                notifyBusy(ctx.client(), userId);
+            }
 
-                User user = userOpt.get();
+            return ctx.ack();
+        });
+    }
 
-                String reconnectUrl = AppConstants.OAUTH_SPOTIFY_PATH + "?userId=" + user.getId();
-                String message = String.format(
-                        ":warning: *Your Spotify connection needs to be renewed*\n\n" +
-                        "Please click the link below to reconnect your Spotify account:\n\n" +
-                        "<%s|Reconnect Spotify Account>",
-                        reconnectUrl
-                );
+    /**
+     * Tells the user their click was dropped because the interaction backlog is full.
+     */
+    private void notifyBusy(MethodsClient client, String userId) {
+        try {
+            client.chatPostMessage(r -> r
+                    .channel(userId)
+                    .text(errorMessageService.buildBusyMessage())
+            );
+        } catch (Exception e) {
+            log.warn("Could not tell user {} their action was dropped: {}", userId, e.getMessage());
+        }
+    }
 
-                ctx.client().chatPostMessage(r -> r
-                        .channel(userId)
-                        .text(message)
-                );
+    private Optional<UserSettings> findSettings(String slackUserId) {
+        return userService.findBySlackUserId(slackUserId)
+                .flatMap(user -> userService.getUserSettings(user.getId()));
+    }
 
-                return ctx.ack();
-            } catch (Exception e) {
-                log.error("Error handling reconnect_spotify action", e);
-                return ctx.ack();
-            }
-        });
+    @FunctionalInterface
+    private interface ModalContent {
+        View build() throws Exception;
     }
 }
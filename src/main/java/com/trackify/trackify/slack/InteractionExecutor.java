@@ -0,0 +1,122 @@
+package com.trackify.trackify.slack;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor for the work behind Slack interactions.
+ * Bolt handlers ack right away and hand Mongo lookups, Spotify calls and view updates
+ * to this executor, so Slack's 3 second deadline never depends on downstream latency.
+ * Tasks run on virtual threads; both concurrency and backlog are capped.
+ */
+@Slf4j
+@Component
+public class InteractionExecutor {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("slack-interaction-", 0).factory());
+
+    private final Semaphore permits;
+    private final int queueCapacity;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final Counter rejectedCounter;
+    private final Timer queueWaitTimer;
+    private final Timer executionTimer;
+
+    public InteractionExecutor(MeterRegistry meterRegistry,
+                               @Value("${trackify.slack.async.max-concurrency:32}") int maxConcurrency,
+                               @Value("${trackify.slack.async.queue-capacity:500}") int queueCapacity) {
+        this.permits = new Semaphore(maxConcurrency);
+        this.queueCapacity = queueCapacity;
+
+        Gauge.builder("trackify.slack.async.queued", queued, AtomicInteger::get)
+                .description("Slack interaction tasks waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("trackify.slack.async.running", running, AtomicInteger::get)
+                .description("Slack interaction tasks currently running")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("trackify.slack.async.rejected")
+                .description("Slack interaction tasks rejected because the queue was full")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("trackify.slack.async.queue.wait")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("trackify.slack.async.execution")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        log.info("Slack interaction executor ready (max concurrency: {}, queue capacity: {})",
+                maxConcurrency, queueCapacity);
+    }
+
+    /**
+     * Schedules a task to run after the handler has acked.
+     * Returns false if the backlog is full and the task was dropped.
+     */
+    public boolean submit(String description, Runnable task) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejectedCounter.increment();
+            log.warn("Slack interaction queue full, dropping task: {}", description);
+            return false;
+        }
+
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            long startedAt = System.nanoTime();
+            queueWaitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Error running Slack interaction task: {}", description, e);
+            } finally {
+                executionTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                running.decrementAndGet();
+                permits.release();
+            }
+        });
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
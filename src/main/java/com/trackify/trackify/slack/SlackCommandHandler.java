@@ -8,16 +8,20 @@ import com.trackify.trackify.constants.AppConstants;
 import com.trackify.trackify.exception.*;
 import com.trackify.trackify.model.User;
 import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.UserSyncState;
 import com.trackify.trackify.service.ErrorMessageService;
 import com.trackify.trackify.service.MusicSyncService;
 import com.trackify.trackify.service.SpotifyService;
+import com.trackify.trackify.service.UserMailboxes;
 import com.trackify.trackify.service.UserService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component
@@ -29,6 +33,8 @@ public class SlackCommandHandler {
     private final SpotifyService spotifyService;
     private final MusicSyncService musicSyncService;
     private final ErrorMessageService errorMessageService;
+    private final InteractionExecutor interactionExecutor;
+    private final UserMailboxes userMailboxes;
 
     @PostConstruct
     public void registerCommands() {
@@ -74,16 +80,17 @@ public class SlackCommandHandler {
     }
 
     private Response handleStatus(SlashCommandRequest req, SlashCommandContext ctx) {
+        String slackUserId = req.getPayload().getUserId();
+        wakeLater(slackUserId);
         try {
-            String slackUserId = req.getPayload().getUserId();
-            Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
+            Optional<User> userOpt = userService.findBySlackUserIdForDisplay(slackUserId);
 
             if (userOpt.isEmpty()) {
                 return ctx.ack(":x: You need to connect your Spotify account first. Visit " + AppConstants.SLACK_INSTALL_PATH + " to get started.");
             }
 
             User user = userOpt.get();
-            Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
+            Optional<UserSettings> settingsOpt = userService.getUserSettingsForDisplay(user.getId());
 
             if (settingsOpt.isEmpty()) {
                 return ctx.ack(":x: User settings not found.");
@@ -101,15 +108,22 @@ public class SlackCommandHandler {
     }
 
     private Response handleSync(SlashCommandRequest req, SlashCommandContext ctx) {
-        try {
-            String slackUserId = req.getPayload().getUserId();
-            musicSyncService.manualSync(slackUserId);
-            return ctx.ack(":arrows_counterclockwise: Manual sync triggered!");
+        String slackUserId = req.getPayload().getUserId();
 
-        } catch (Exception e) {
-            log.error("Error handling sync command", e);
-            return ctx.ack(":x: Failed to sync. Error: " + e.getMessage());
+        boolean accepted = respondLater(ctx, slackUserId, "sync", () -> {
+            try {
+                musicSyncService.manualSync(slackUserId);
+                return ":white_check_mark: Sync complete!";
+            } catch (Exception e) {
+                log.error("Error handling sync command", e);
+                return ":x: Failed to sync. Error: " + e.getMessage();
+            }
+        });
+        if (!accepted) {
+            return ctx.ack(errorMessageService.buildBusyMessage());
         }
+
+        return ctx.ack(":arrows_counterclockwise: Manual sync triggered!");
     }
 
     private Response handleEnable(SlashCommandRequest req, SlashCommandContext ctx) {
@@ -121,26 +135,31 @@ public class SlackCommandHandler {
     }
 
     private Response handleReconnect(SlashCommandRequest req, SlashCommandContext ctx) {
-        try {
-            String slackUserId = req.getPayload().getUserId();
-            Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
+        String slackUserId = req.getPayload().getUserId();
 
-            if (userOpt.isEmpty()) {
-                return ctx.ack(errorMessageService.buildNotConnectedMessage());
+        boolean accepted = respondLater(ctx, slackUserId, "reconnect", () -> {
+            try {
+                Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
+                if (userOpt.isEmpty()) {
+                    return errorMessageService.buildNotConnectedMessage();
+                }
+
+                String reconnectUrl = spotifyService.buildConnectLink(userOpt.get().getId());
+                return errorMessageService.buildReconnectInstructions(reconnectUrl);
+            } catch (Exception e) {
+                log.error("Error handling reconnect command", e);
+                return errorMessageService.buildGenericErrorMessage();
             }
-
-            User user = userOpt.get();
-            String reconnectUrl = AppConstants.OAUTH_SPOTIFY_PATH + "?userId=" + user.getId();
-
-            return ctx.ack(errorMessageService.buildReconnectInstructions(reconnectUrl));
-
-        } catch (Exception e) {
-            log.error("Error handling reconnect command", e);
-            return ctx.ack(errorMessageService.buildGenericErrorMessage());
+        });
+        if (!accepted) {
+            return ctx.ack(errorMessageService.buildBusyMessage());
         }
+
+        return ctx.ack();
     }
 
     private Response handleHelp(SlashCommandRequest req, SlashCommandContext ctx) {
+        wakeLater(req.getPayload().getUserId());
         String helpMessage = """
                 :musical_note: *Trackify Commands*
 
@@ -175,11 +194,12 @@ public class SlackCommandHandler {
         message.append("\n");
 
         // Currently playing
-        if (user.getCurrentlyPlayingSongTitle() != null) {
+        UserSyncState syncState = userService.getSyncStateForDisplay(user.getId());
+        if (syncState.getCurrentlyPlayingSongTitle() != null) {
             message.append("*Now Playing:* ");
-            message.append(user.getCurrentlyPlayingSongTitle());
+            message.append(syncState.getCurrentlyPlayingSongTitle());
             message.append(" - ");
-            message.append(user.getCurrentlyPlayingArtist());
+            message.append(syncState.getCurrentlyPlayingArtist());
             message.append("\n");
         } else {
             message.append("*Now Playing:* Nothing\n");
@@ -199,34 +219,78 @@ public class SlackCommandHandler {
 
     private Response executeSpotifyCommand(SlashCommandRequest req, SlashCommandContext ctx,
                                           String commandName, SpotifyCommandAction action) {
+        String slackUserId = req.getPayload().getUserId();
+        if (!respondLater(ctx, slackUserId, commandName,
+                () -> runSpotifyCommand(slackUserId, commandName, action))) {
+            return ctx.ack(errorMessageService.buildBusyMessage());
+        }
+        return ctx.ack();
+    }
+
+    private String runSpotifyCommand(String slackUserId, String commandName, SpotifyCommandAction action) {
         try {
-            User user = validateUserAndSpotifyConnection(req, ctx);
+            User user = validateUserAndSpotifyConnection(slackUserId);
             if (user == null) {
-                return ctx.ack(errorMessageService.buildNotConnectedMessage());
+                return errorMessageService.buildNotConnectedMessage();
             }
 
-            String successMessage = action.execute(user);
-            return ctx.ack(successMessage);
+            // Serialized with the user's syncs and settings saves
+            return userMailboxes.call(user.getId(), "playback", () -> action.execute(user));
 
         } catch (NoActiveDeviceException e) {
-            return ctx.ack(errorMessageService.buildNoDeviceMessage());
+            return errorMessageService.buildNoDeviceMessage();
         } catch (SpotifyTokenExpiredException e) {
-            return ctx.ack(errorMessageService.buildTokenExpiredMessage(req.getPayload().getUserId()));
+            return errorMessageService.buildTokenExpiredMessage(slackUserId);
         } catch (SpotifyPremiumRequiredException e) {
-            return ctx.ack(errorMessageService.buildPremiumRequiredMessage());
+            return errorMessageService.buildPremiumRequiredMessage();
         } catch (SpotifyRateLimitException e) {
-            return ctx.ack(errorMessageService.buildRateLimitMessage());
+            return errorMessageService.buildRateLimitMessage();
         } catch (SpotifyException e) {
             log.error("Spotify error handling {} command", commandName, e);
-            return ctx.ack(errorMessageService.buildNetworkErrorMessage());
+            return errorMessageService.buildNetworkErrorMessage();
         } catch (Exception e) {
             log.error("Unexpected error handling {} command", commandName, e);
-            return ctx.ack(errorMessageService.buildGenericErrorMessage());
+            return errorMessageService.buildGenericErrorMessage();
         }
     }
 
-    private User validateUserAndSpotifyConnection(SlashCommandRequest req, SlashCommandContext ctx) {
-        String slackUserId = req.getPayload().getUserId();
+    /**
+     * Runs the work behind a command after the ack and posts its result through response_url.
+     * Returns false if the interaction backlog is full and the work was dropped.
+     */
+    private boolean respondLater(SlashCommandContext ctx, String slackUserId, String operation, Supplier<String> work) {
+        String description = operation + " " + slackUserId;
+        return interactionExecutor.submit("/trackify " + description, () -> {
+            wakeUp(slackUserId);
+            String message = work.get();
+            try {
+                ctx.respond(message);
+            } catch (IOException e) {
+                log.error("Error responding to /trackify {}", description, e);
+            }
+        });
+    }
+
+    /**
+     * For commands answered in the ack itself: only the wake-up is left for after it.
+     */
+    private void wakeLater(String slackUserId) {
+        interactionExecutor.submit("/trackify wake " + slackUserId, () -> wakeUp(slackUserId));
+    }
+
+    /**
+     * Someone using the app is likely to play music soon: end any hibernation.
+     * A failure here must not cost the user the command's answer.
+     */
+    private void wakeUp(String slackUserId) {
+        try {
+            musicSyncService.wakeUp(slackUserId);
+        } catch (RuntimeException e) {
+            log.warn("Could not wake sync for user {}: {}", slackUserId, e.getMessage());
+        }
+    }
+
+    private User validateUserAndSpotifyConnection(String slackUserId) {
         Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
 
         if (userOpt.isEmpty()) {
@@ -243,31 +307,28 @@ public class SlackCommandHandler {
 
     private Response updateSyncSetting(SlashCommandRequest req, SlashCommandContext ctx,
                                        boolean enabled, String successMessage, String operation) {
-        try {
-            String slackUserId = req.getPayload().getUserId();
-            Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
-
-            if (userOpt.isEmpty()) {
-                return ctx.ack(":x: User not found.");
-            }
-
-            User user = userOpt.get();
-            Optional<UserSettings> settingsOpt = userService.getUserSettings(user.getId());
+        String slackUserId = req.getPayload().getUserId();
 
-            if (settingsOpt.isEmpty()) {
-                return ctx.ack(":x: User settings not found.");
+        // The lookup and the save (which waits its turn behind any sync in progress) both run after the ack
+        boolean accepted = respondLater(ctx, slackUserId, operation, () -> {
+            try {
+                Optional<User> userOpt = userService.findBySlackUserId(slackUserId);
+                if (userOpt.isEmpty()) {
+                    return ":x: User not found.";
+                }
+
+                userService.updateSyncEnabled(userOpt.get().getId(), enabled);
+                return successMessage;
+            } catch (Exception e) {
+                log.error("Error handling {} command", operation, e);
+                return ":x: Failed to " + operation + " sync. Error: " + e.getMessage();
             }
-
-            UserSettings settings = settingsOpt.get();
-            settings.setSyncEnabled(enabled);
-            userService.updateUserSettings(settings);
-
-            return ctx.ack(successMessage);
-
-        } catch (Exception e) {
-            log.error("Error handling {} command", operation, e);
-            return ctx.ack(":x: Failed to " + operation + " sync. Error: " + e.getMessage());
+        });
+        if (!accepted) {
+            return ctx.ack(errorMessageService.buildBusyMessage());
         }
+
+        return ctx.ack();
     }
 
     @FunctionalInterface
@@ -0,0 +1,152 @@
+package com.trackify.trackify.slack;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.slack.api.bolt.middleware.Middleware;
+import com.slack.api.bolt.middleware.MiddlewareChain;
+import com.slack.api.bolt.request.Request;
+import com.slack.api.bolt.request.builtin.BlockActionRequest;
+import com.slack.api.bolt.request.builtin.EventRequest;
+import com.slack.api.bolt.request.builtin.SlashCommandRequest;
+import com.slack.api.bolt.request.builtin.ViewSubmissionRequest;
+import com.slack.api.bolt.response.Response;
+import com.trackify.trackify.model.ProcessedSlackRequest;
+import com.trackify.trackify.repository.ProcessedSlackRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Bolt middleware that drops Slack redeliveries before they reach the handlers.
+ * Events are keyed by event_id and interactions by trigger_id. The first delivery is
+ * dispatched; any later delivery of the same key (typically carrying X-Slack-Retry-Num)
+ * is acked without reprocessing. Keys live in a bounded, expiring in-memory cache, or in
+ * a TTL-indexed Mongo collection when several instances share the Slack endpoint.
+ */
+@Slf4j
+@Component
+public class SlackRequestDeduplicator implements Middleware {
+
+    private static final String RETRY_NUM_HEADER = "X-Slack-Retry-Num";
+
+    private final ProcessedSlackRequestRepository processedRequestRepository;
+    private final Cache<String, Boolean> seenKeys;
+    private final Duration ttl;
+    private final boolean sharedStore;
+    private final Counter duplicateCounter;
+
+    public SlackRequestDeduplicator(ProcessedSlackRequestRepository processedRequestRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${trackify.slack.dedup.store:memory}") String store,
+                                    @Value("${trackify.slack.dedup.ttl-seconds:600}") long ttlSeconds,
+                                    @Value("${trackify.slack.dedup.max-entries:100000}") long maxEntries) {
+        this.processedRequestRepository = processedRequestRepository;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.sharedStore = "mongo".equalsIgnoreCase(store);
+        this.seenKeys = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.duplicateCounter = Counter.builder("trackify.slack.dedup.duplicates")
+                .description("Slack redeliveries acked without reprocessing")
+                .register(meterRegistry);
+
+        log.info("Slack request dedup enabled (store: {}, ttl: {}s)", sharedStore ? "mongo" : "memory", ttlSeconds);
+    }
+
+    @Override
+    public Response apply(Request req, Response resp, MiddlewareChain chain) throws Exception {
+        String key = dedupKey(req);
+        if (key == null) {
+            return chain.next(req);
+        }
+
+        if (!markFirstSeen(key)) {
+            duplicateCounter.increment();
+            log.info("Dropping duplicate Slack delivery {} (retry: {})",
+                    key, req.getHeaders().getFirstValue(RETRY_NUM_HEADER));
+            return Response.ok();
+        }
+
+        try {
+            return chain.next(req);
+        } catch (Exception e) {
+            // Let Slack's retry through if we never got to handle the first delivery
+            forget(key);
+            throw e;
+        }
+    }
+
+    private String dedupKey(Request<?> req) {
+        if (req instanceof EventRequest eventRequest) {
+            String eventId = extractEventId(eventRequest.getRequestBodyAsString());
+            return eventId != null ? "event:" + eventId : null;
+        }
+        if (req instanceof BlockActionRequest actionRequest) {
+            return triggerKey(actionRequest.getPayload().getTriggerId());
+        }
+        if (req instanceof ViewSubmissionRequest submissionRequest) {
+            return triggerKey(submissionRequest.getPayload().getTriggerId());
+        }
+        if (req instanceof SlashCommandRequest commandRequest) {
+            return triggerKey(commandRequest.getPayload().getTriggerId());
+        }
+        return null;
+    }
+
+    private String triggerKey(String triggerId) {
+        return triggerId != null ? "trigger:" + triggerId : null;
+    }
+
+    private String extractEventId(String body) {
+        try {
+            JsonElement eventId = JsonParser.parseString(body).getAsJsonObject().get("event_id");
+            return eventId != null && !eventId.isJsonNull() ? eventId.getAsString() : null;
+        } catch (RuntimeException e) {
+            log.debug("Could not read event_id from Slack event body", e);
+            return null;
+        }
+    }
+
+    private boolean markFirstSeen(String key) {
+        if (seenKeys.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+            return false;
+        }
+        if (!sharedStore) {
+            return true;
+        }
+
+        try {
+            processedRequestRepository.insert(ProcessedSlackRequest.builder()
+                    .key(key)
+                    .expiresAt(LocalDateTime.now().plus(ttl))
+                    .build());
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        } catch (RuntimeException e) {
+            // Fail open: a missed dedup costs one extra dispatch, a false positive loses a user action
+            log.warn("Shared Slack dedup store unavailable, processing {} anyway: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    private void forget(String key) {
+        seenKeys.invalidate(key);
+        if (sharedStore) {
+            try {
+                processedRequestRepository.deleteById(key);
+            } catch (RuntimeException e) {
+                log.warn("Could not remove Slack dedup key {}: {}", key, e.getMessage());
+            }
+        }
+    }
+}
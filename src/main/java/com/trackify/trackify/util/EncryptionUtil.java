@@ -1,43 +1,120 @@
 package com.trackify.trackify.util;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.KeySpec;
 import java.util.Base64;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AES encryption of stored tokens with a versioned keyring.
+ * Keys are derived once at startup. Ciphertexts are written as {@code <format>:<keyId>:<base64>}, where
+ * format v1 is AES/CBC and v2 is AES/GCM, so keys and modes can be rotated while older ciphertexts stay
+ * readable; unprefixed values from before the keyring are decrypted with the legacy key as CBC.
+ * Until trackify.encryption.write-prefixed is switched on, new values are still written in that unprefixed
+ * format, so nodes of a rolling deploy that cannot read prefixes yet never see one.
+ * A Cipher is created per operation: they are not thread-safe, and thread-local reuse buys nothing on
+ * virtual threads, which each live for a single task.
+ */
 @Slf4j
 @Component
 public class EncryptionUtil {
 
     private static final String ALGORITHM = "AES/CBC/PKCS5Padding";
+    private static final String GCM_ALGORITHM = "AES/GCM/NoPadding";
     private static final String SECRET_KEY_ALGORITHM = "AES";
     private static final int KEY_LENGTH = 256;
     private static final int ITERATION_COUNT = 65536;
+    private static final int IV_LENGTH = 16;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final String FORMAT_CBC = "v1";
+    private static final String FORMAT_GCM = "v2";
 
     @Value("${trackify.encryption.secret-key}")
     private String secretKeyString;
 
+    @Value("${trackify.encryption.active-key-id:k1}")
+    private String activeKeyId;
+
+    // Retired keys still needed for decryption, as id:secret pairs separated by commas
+    @Value("${trackify.encryption.previous-keys:}")
+    private String previousKeys;
+
+    // Key used for ciphertexts written before key IDs were introduced; fixed, so rotating the active key leaves it alone
+    @Value("${trackify.encryption.legacy-key-id:k1}")
+    private String legacyKeyId;
+
+    // Format for new ciphertexts: v1 (CBC) or v2 (GCM)
+    @Value("${trackify.encryption.write-format:v1}")
+    private String writeFormat;
+
+    // Off: new ciphertexts use the unprefixed legacy format (CBC, legacy key) that every node can read
+    @Value("${trackify.encryption.write-prefixed:false}")
+    private boolean writePrefixed;
+
     private static final SecureRandom secureRandom = new SecureRandom();
 
+    private final Map<String, SecretKey> keyring = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initKeyring() {
+        if (!FORMAT_CBC.equals(writeFormat) && !FORMAT_GCM.equals(writeFormat)) {
+            throw new IllegalStateException("Unsupported encryption write format: " + writeFormat);
+        }
+        if (!writePrefixed && FORMAT_GCM.equals(writeFormat)) {
+            throw new IllegalStateException("Write format v2 needs trackify.encryption.write-prefixed=true");
+        }
+
+        if (secretKeyString == null || secretKeyString.isBlank()) {
+            log.warn("No encryption secret configured; token encryption is unavailable");
+            return;
+        }
+
+        keyring.put(activeKeyId, deriveKey(secretKeyString));
+        for (String entry : previousKeys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator > 0) {
+                keyring.putIfAbsent(entry.substring(0, separator).trim(), deriveKey(entry.substring(separator + 1).trim()));
+            }
+        }
+        if (!keyring.containsKey(legacyKeyId)) {
+            throw new IllegalStateException("Legacy key " + legacyKeyId + " is neither the active key nor in "
+                    + "trackify.encryption.previous-keys; set trackify.encryption.legacy-key-id to the key of the unprefixed values");
+        }
+
+        log.info("Encryption keyring loaded (writing: {}, keys: {})", currentVersion(), keyring.keySet());
+    }
+
     public String encrypt(String data) {
+        if (data == null) {
+            // Optional tokens (e.g. a bot-only Slack install has no user token) stay absent
+            return null;
+        }
         try {
-            byte[] iv = new byte[16];
+            boolean gcm = FORMAT_GCM.equals(writeFormat);
+            byte[] iv = new byte[gcm ? GCM_IV_LENGTH : IV_LENGTH];
             secureRandom.nextBytes(iv);
-            IvParameterSpec ivParameterSpec = new IvParameterSpec(iv);
 
-            SecretKey secretKey = getSecretKey();
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivParameterSpec);
+            Cipher cipher = newCipher(gcm ? GCM_ALGORITHM : ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, key(writePrefixed ? activeKeyId : legacyKeyId),
+                    gcm ? new GCMParameterSpec(GCM_TAG_BITS, iv) : new IvParameterSpec(iv));
 
             byte[] encrypted = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
 
@@ -46,7 +123,8 @@ public class EncryptionUtil {
             System.arraycopy(iv, 0, combined, 0, iv.length);
             System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
 
-            return Base64.getEncoder().encodeToString(combined);
+            String encoded = Base64.getEncoder().encodeToString(combined);
+            return writePrefixed ? currentPrefix() + encoded : encoded;
         } catch (Exception e) {
             log.error("Error encrypting data", e);
             throw new RuntimeException("Encryption failed", e);
@@ -55,21 +133,30 @@ public class EncryptionUtil {
 
     public String decrypt(String encryptedData) {
         try {
-            byte[] combined = Base64.getDecoder().decode(encryptedData);
-
-            // Extract IV and encrypted data
-            byte[] iv = new byte[16];
-            byte[] encrypted = new byte[combined.length - 16];
-            System.arraycopy(combined, 0, iv, 0, iv.length);
-            System.arraycopy(combined, iv.length, encrypted, 0, encrypted.length);
-
-            IvParameterSpec ivParameterSpec = new IvParameterSpec(iv);
-            SecretKey secretKey = getSecretKey();
-
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, ivParameterSpec);
-
-            byte[] decrypted = cipher.doFinal(encrypted);
+            String format = FORMAT_CBC;
+            String keyId = legacyKeyId;
+            String payload = encryptedData;
+
+            // Base64 never contains ':', so a prefix is unambiguous
+            String[] parts = encryptedData.split(":", 3);
+            if (isPrefixed(parts)) {
+                format = parts[0];
+                keyId = parts[1];
+                payload = parts[2];
+            }
+
+            byte[] combined = Base64.getDecoder().decode(payload);
+
+            byte[] decrypted;
+            if (FORMAT_GCM.equals(format)) {
+                Cipher cipher = newCipher(GCM_ALGORITHM);
+                cipher.init(Cipher.DECRYPT_MODE, key(keyId), new GCMParameterSpec(GCM_TAG_BITS, combined, 0, GCM_IV_LENGTH));
+                decrypted = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
+            } else {
+                Cipher cipher = newCipher(ALGORITHM);
+                cipher.init(Cipher.DECRYPT_MODE, key(keyId), new IvParameterSpec(combined, 0, IV_LENGTH));
+                decrypted = cipher.doFinal(combined, IV_LENGTH, combined.length - IV_LENGTH);
+            }
             return new String(decrypted, StandardCharsets.UTF_8);
         } catch (Exception e) {
             log.error("Error decrypting data", e);
@@ -77,11 +164,58 @@ public class EncryptionUtil {
         }
     }
 
-    private SecretKey getSecretKey() throws Exception {
-        byte[] salt = "trackify-salt-2025".getBytes(StandardCharsets.UTF_8);
-        KeySpec keySpec = new PBEKeySpec(secretKeyString.toCharArray(), salt, ITERATION_COUNT, KEY_LENGTH);
-        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-        byte[] keyBytes = factory.generateSecret(keySpec).getEncoded();
-        return new SecretKeySpec(keyBytes, SECRET_KEY_ALGORITHM);
+    /**
+     * Whether a ciphertext was written with the active key and write format.
+     */
+    public boolean isCurrent(String encryptedData) {
+        if (encryptedData == null) {
+            return false;
+        }
+        return writePrefixed
+                ? encryptedData.startsWith(currentPrefix())
+                : !isPrefixed(encryptedData.split(":", 3));
+    }
+
+    /**
+     * Identifies the active key and format, e.g. "v2:k2", or "legacy:k1" while writing unprefixed values.
+     */
+    public String currentVersion() {
+        return writePrefixed ? writeFormat + ":" + activeKeyId : "legacy:" + legacyKeyId;
+    }
+
+    private boolean isPrefixed(String[] parts) {
+        return parts.length == 3 && (FORMAT_CBC.equals(parts[0]) || FORMAT_GCM.equals(parts[0]));
+    }
+
+    private String currentPrefix() {
+        return writeFormat + ":" + activeKeyId + ":";
+    }
+
+    private SecretKey key(String keyId) {
+        SecretKey key = keyring.get(keyId);
+        if (key == null) {
+            throw new IllegalStateException("Unknown encryption key: " + keyId);
+        }
+        return key;
+    }
+
+    private static SecretKey deriveKey(String secret) {
+        try {
+            byte[] salt = "trackify-salt-2025".getBytes(StandardCharsets.UTF_8);
+            KeySpec keySpec = new PBEKeySpec(secret.toCharArray(), salt, ITERATION_COUNT, KEY_LENGTH);
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            byte[] keyBytes = factory.generateSecret(keySpec).getEncoded();
+            return new SecretKeySpec(keyBytes, SECRET_KEY_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not derive encryption key", e);
+        }
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("Cipher unavailable: " + transformation, e);
+        }
     }
 }
@@ -0,0 +1,135 @@
+package com.trackify.trackify.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Self-verifying OAuth state tokens: subject.nonce.expiry.signature, signed with HMAC-SHA256.
+ * Tokens are checked without any datastore; single use is enforced by an in-memory cache of
+ * consumed nonces kept for the token lifetime.
+ */
+@Slf4j
+@Component
+public class OAuthStateSigner {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    private final SecretKeySpec signingKey;
+    private final Duration ttl;
+    private final Cache<String, Boolean> consumedNonces;
+
+    public OAuthStateSigner(@Value("${trackify.oauth.state.secret:}") String secret,
+                            @Value("${trackify.encryption.secret-key:}") String encryptionSecret,
+                            @Value("${trackify.oauth.state.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${trackify.oauth.state.replay-cache-size:10000}") long replayCacheSize) {
+        // A leaked state secret must not also expose the tokens encrypted at rest
+        if (secret != null && !secret.isBlank() && secret.equals(encryptionSecret)) {
+            throw new IllegalStateException("trackify.oauth.state.secret must differ from the encryption secret key");
+        }
+        // Left unset when no secret is configured so the context still starts; signing then fails loudly
+        this.signingKey = secret == null || secret.isBlank()
+                ? null
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.consumedNonces = Caffeine.newBuilder()
+                .maximumSize(replayCacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Issues a state token bound to the given subject (e.g. the user starting the flow).
+     */
+    public String issue(String subject) {
+        byte[] nonce = new byte[16];
+        secureRandom.nextBytes(nonce);
+        long expiresAt = System.currentTimeMillis() / 1000 + ttl.toSeconds();
+
+        String payload = ENCODER.encodeToString(subject.getBytes(StandardCharsets.UTF_8))
+                + "." + ENCODER.encodeToString(nonce)
+                + "." + expiresAt;
+        return payload + "." + sign(payload);
+    }
+
+    /**
+     * Returns the subject if the token is authentic, unexpired and not yet consumed.
+     */
+    public Optional<String> verify(String token) {
+        return parse(token)
+                .filter(state -> consumedNonces.getIfPresent(state.nonce()) == null)
+                .map(ParsedState::subject);
+    }
+
+    /**
+     * Verifies the token and marks it used. A second call with the same token returns empty.
+     */
+    public Optional<String> consume(String token) {
+        return parse(token)
+                .filter(state -> consumedNonces.asMap().putIfAbsent(state.nonce(), Boolean.TRUE) == null)
+                .map(ParsedState::subject);
+    }
+
+    private Optional<ParsedState> parse(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        String[] parts = token.split("\\.");
+        if (parts.length != 4) {
+            log.warn("Malformed OAuth state token");
+            return Optional.empty();
+        }
+
+        try {
+            String payload = parts[0] + "." + parts[1] + "." + parts[2];
+            byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+            if (!MessageDigest.isEqual(expected, parts[3].getBytes(StandardCharsets.US_ASCII))) {
+                log.warn("OAuth state token signature mismatch");
+                return Optional.empty();
+            }
+
+            if (Long.parseLong(parts[2]) < System.currentTimeMillis() / 1000) {
+                log.warn("OAuth state token expired");
+                return Optional.empty();
+            }
+
+            String subject = new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8);
+            return Optional.of(new ParsedState(subject, parts[1]));
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed OAuth state token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private String sign(String payload) {
+        if (signingKey == null) {
+            throw new IllegalStateException("No OAuth state secret configured");
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return ENCODER.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign OAuth state", e);
+        }
+    }
+
+    private record ParsedState(String subject, String nonce) {
+    }
+}
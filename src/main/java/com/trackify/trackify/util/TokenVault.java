@@ -0,0 +1,229 @@
+package com.trackify.trackify.util;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * In-process vault of decrypted tokens, held off-heap.
+ * Each token is decrypted once and kept in a native memory slot until it expires (token expiry,
+ * capped by a default TTL) or its ciphertext changes. Slots are carved out of slabs of one shared
+ * arena and zeroed before they are reused, so storing a token costs no arena of its own.
+ * Callers still receive a short-lived String for the API client, but no long-lived decrypted copy
+ * sits on the heap or in cached entities.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVault {
+
+    public static final String SPOTIFY_ACCESS_SLOT = "spotify-access:";
+    public static final String SLACK_USER_SLOT = "slack-user:";
+    public static final String SLACK_BOT_SLOT = "slack-bot:";
+    private static final List<String> USER_SLOTS = List.of(SPOTIFY_ACCESS_SLOT, SLACK_USER_SLOT, SLACK_BOT_SLOT);
+
+    private final EncryptionUtil encryptionUtil;
+    private final Map<String, VaultEntry> entries = new ConcurrentHashMap<>();
+    private final SlotPool pool = new SlotPool();
+
+    @Value("${trackify.vault.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trackify.vault.default-ttl-seconds:3600}")
+    private long defaultTtlSeconds;
+
+    /**
+     * Returns the plaintext of a ciphertext stored under the given slot (e.g. {@link #SLACK_USER_SLOT} + userId),
+     * decrypting only when the vault has no live entry for exactly this ciphertext.
+     *
+     * @param expiresAt when the token itself expires, or null if it does not
+     */
+    public String reveal(String slot, String ciphertext, LocalDateTime expiresAt) {
+        if (ciphertext == null) {
+            return null;
+        }
+        if (!enabled) {
+            return encryptionUtil.decrypt(ciphertext);
+        }
+
+        long now = System.currentTimeMillis();
+        VaultEntry entry = entries.get(slot);
+        if (entry != null && entry.matches(ciphertext, now)) {
+            String plaintext = entry.read();
+            if (plaintext != null) {
+                return plaintext;
+            }
+        }
+
+        String plaintext = encryptionUtil.decrypt(ciphertext);
+        long expiresAtMillis = now + defaultTtlSeconds * 1000;
+        if (expiresAt != null) {
+            expiresAtMillis = Math.min(expiresAtMillis, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+
+        if (expiresAtMillis > now) {
+            VaultEntry previous = entries.put(slot, VaultEntry.create(pool, plaintext, ciphertext, expiresAtMillis));
+            if (previous != null) {
+                previous.destroy();
+            }
+        }
+        return plaintext;
+    }
+
+    /**
+     * Drops and zeroes every slot belonging to a user, e.g. after their tokens were replaced.
+     */
+    public void evictUser(String userId) {
+        USER_SLOTS.forEach(slot -> evict(slot + userId));
+    }
+
+    public void evict(String slot) {
+        VaultEntry entry = entries.remove(slot);
+        if (entry != null) {
+            entry.destroy();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trackify.vault.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((slot, entry) -> {
+            if (entry.isExpired(now) && entries.remove(slot, entry)) {
+                entry.destroy();
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void destroyAll() {
+        entries.keySet().forEach(this::evict);
+        pool.close();
+    }
+
+    /**
+     * Fixed-size native slots, allocated a slab at a time from one shared arena and recycled on eviction.
+     * Tokens too long for a slot get an arena of their own.
+     */
+    private static final class SlotPool {
+
+        private static final int SLOT_BYTES = 512;
+        private static final int SLOTS_PER_SLAB = 256;
+
+        private final Arena arena = Arena.ofShared();
+        private final Deque<MemorySegment> free = new ConcurrentLinkedDeque<>();
+
+        MemorySegment acquire() {
+            MemorySegment slot = free.poll();
+            if (slot != null) {
+                return slot;
+            }
+            synchronized (this) {
+                slot = free.poll();
+                if (slot != null) {
+                    return slot;
+                }
+                MemorySegment slab = arena.allocate((long) SLOT_BYTES * SLOTS_PER_SLAB);
+                for (int i = 1; i < SLOTS_PER_SLAB; i++) {
+                    free.push(slab.asSlice((long) i * SLOT_BYTES, SLOT_BYTES));
+                }
+                return slab.asSlice(0, SLOT_BYTES);
+            }
+        }
+
+        void release(MemorySegment slot) {
+            slot.fill((byte) 0);
+            free.push(slot);
+        }
+
+        void close() {
+            arena.close();
+        }
+    }
+
+    /**
+     * One token in a pooled slot, or in its own arena when it does not fit one.
+     * Reads and destruction are synchronized so a reader never sees a half-zeroed segment.
+     */
+    private static final class VaultEntry {
+
+        private final SlotPool pool;
+        private final Arena ownArena; // Only for tokens longer than a slot
+        private final MemorySegment segment;
+        private final int length;
+        private final String ciphertext;
+        private final long expiresAtMillis;
+        private boolean destroyed;
+
+        private VaultEntry(SlotPool pool, Arena ownArena, MemorySegment segment, int length, String ciphertext,
+                           long expiresAtMillis) {
+            this.pool = pool;
+            this.ownArena = ownArena;
+            this.segment = segment;
+            this.length = length;
+            this.ciphertext = ciphertext;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        static VaultEntry create(SlotPool pool, String plaintext, String ciphertext, long expiresAtMillis) {
+            byte[] bytes = plaintext.getBytes(StandardCharsets.UTF_8);
+            Arena ownArena = bytes.length > SlotPool.SLOT_BYTES ? Arena.ofShared() : null;
+            MemorySegment segment = ownArena != null ? ownArena.allocate(bytes.length) : pool.acquire();
+            MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, 0, bytes.length);
+            Arrays.fill(bytes, (byte) 0);
+            return new VaultEntry(pool, ownArena, segment, bytes.length, ciphertext, expiresAtMillis);
+        }
+
+        boolean matches(String otherCiphertext, long now) {
+            return !isExpired(now) && ciphertext.equals(otherCiphertext);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+
+        synchronized String read() {
+            if (destroyed) {
+                return null;
+            }
+            byte[] bytes = segment.asSlice(0, length).toArray(ValueLayout.JAVA_BYTE);
+            try {
+                return new String(bytes, StandardCharsets.UTF_8);
+            } finally {
+                Arrays.fill(bytes, (byte) 0);
+            }
+        }
+
+        synchronized void destroy() {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            if (ownArena != null) {
+                segment.fill((byte) 0);
+                ownArena.close();
+            } else {
+                pool.release(segment);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.trackify.trackify.repository.inmemory;
+
+import com.trackify.trackify.model.User;
+import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.WorkingHoursWindow;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryMongoRepositoryTest {
+
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private final InMemoryUserSettingsRepository settings = new InMemoryUserSettingsRepository();
+
+    @Test
+    void indexFollowsUpdatesOfTheIndexedField() {
+        User user = users.save(user("U1", "T1"));
+
+        user.setSlackUserId("U2");
+        users.save(user);
+
+        assertTrue(users.findBySlackUserId("U1").isEmpty());
+        assertEquals(user.getId(), users.findBySlackUserId("U2").orElseThrow().getId());
+        // The old value is free again
+        users.save(user("U1", "T1"));
+        assertTrue(users.findBySlackUserId("U1").isPresent());
+        assertEquals(2, users.count());
+    }
+
+    @Test
+    void rejectsDuplicateUniqueValues() {
+        users.save(user("U1", "T1"));
+
+        assertThrows(DuplicateKeyException.class, () -> users.save(user("U1", "T2")));
+        assertTrue(users.findBySlackTeamId("T2").isEmpty());
+    }
+
+    @Test
+    void deletesDropIndexEntries() {
+        settings.save(UserSettings.builder().userId("u1").build());
+
+        settings.deleteByUserId("u1");
+
+        assertFalse(settings.existsByUserId("u1"));
+        settings.save(UserSettings.builder().userId("u1").build());
+        assertTrue(settings.existsByUserId("u1"));
+    }
+
+    @Test
+    void copiesCollectionsAndNestedDocuments() {
+        List<WorkingHoursWindow> schedule = new ArrayList<>(List.of(
+                WorkingHoursWindow.builder().dayOfWeek(DayOfWeek.MONDAY).start("09:00").end("17:00").build()));
+        UserSettings saved = settings.save(UserSettings.builder()
+                .userId("u1")
+                .allowedDeviceIds(new ArrayList<>(List.of("d1")))
+                .weeklySchedule(schedule)
+                .build());
+
+        saved.getAllowedDeviceIds().add("d2");
+        schedule.getFirst().setEnd("18:00");
+        UserSettings loaded = settings.findByUserId("u1").orElseThrow();
+        loaded.getAllowedDeviceIds().add("d3");
+        loaded.getGenreEmojiMap().put("rock", ":guitar:");
+
+        UserSettings stored = settings.findByUserId("u1").orElseThrow();
+        assertEquals(List.of("d1"), stored.getAllowedDeviceIds());
+        assertEquals("17:00", stored.getWeeklySchedule().getFirst().getEnd());
+        assertTrue(stored.getGenreEmojiMap().isEmpty());
+    }
+
+    @Test
+    void queriesByExample() {
+        users.save(user("U1", "T1"));
+        users.save(user("U2", "T1"));
+        users.save(user("U3", "T2"));
+
+        User probe = new User();
+        probe.setSlackTeamId("T1");
+        probe.setActive(true);
+        assertEquals(2, users.count(Example.of(probe)));
+        assertEquals(List.of("U2", "U1"), users.findAll(Example.of(probe), Sort.by(Sort.Direction.DESC, "slackUserId"))
+                .stream().map(User::getSlackUserId).toList());
+
+        User prefix = new User();
+        prefix.setSlackUserId("u");
+        ExampleMatcher startsWith = ExampleMatcher.matching()
+                .withIgnorePaths("active")
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING)
+                .withIgnoreCase();
+        long matches = users.findBy(Example.of(prefix, startsWith), FluentQuery.FetchableFluentQuery::count);
+        assertEquals(3, matches);
+        assertEquals("U3", users.findBy(Example.of(prefix, startsWith),
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "slackUserId")).firstValue().getSlackUserId()));
+    }
+
+    @Test
+    void streamsThePollSetInSpotifyAccountOrder() {
+        User second = user("U1", "T1");
+        second.setSpotifyUserId("account-b");
+        users.save(second);
+        User first = user("U2", "T1");
+        first.setSpotifyUserId("account-a");
+        users.save(first);
+        User linked = user("U3", "T2");
+        linked.setSpotifyUserId("account-b");
+        users.save(linked);
+        users.save(user("U4", "T2"));
+
+        List<String> accounts;
+        try (var pollSet = users.streamAwakeByActiveTrue(LocalDateTime.now())) {
+            accounts = pollSet.map(User::getSpotifyUserId).toList();
+        }
+
+        // Like Mongo, users without an account sort first; linked identities are adjacent
+        assertEquals(Arrays.asList(null, "account-a", "account-b", "account-b"), accounts);
+    }
+
+    private static User user(String slackUserId, String slackTeamId) {
+        User user = new User();
+        user.setSlackUserId(slackUserId);
+        user.setSlackTeamId(slackTeamId);
+        user.setActive(true);
+        return user;
+    }
+}
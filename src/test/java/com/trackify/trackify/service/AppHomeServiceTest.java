@@ -0,0 +1,110 @@
+package com.trackify.trackify.service;
+
+import com.slack.api.methods.MethodsClient;
+import com.slack.api.methods.request.views.ViewsPublishRequest;
+import com.slack.api.methods.response.views.ViewsPublishResponse;
+import com.trackify.trackify.model.HomeViewHash;
+import com.trackify.trackify.repository.HomeViewHashRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppHomeServiceTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final TimezoneService timezoneService = mock(TimezoneService.class);
+    private final HomeViewHashRepository homeViewHashRepository = mock(HomeViewHashRepository.class);
+    private final MethodsClient client = mock(MethodsClient.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(userService.findBySlackUserIdForDisplay("U1")).thenReturn(Optional.empty());
+        when(homeViewHashRepository.findById("U1")).thenReturn(Optional.empty());
+        when(client.viewsPublish(any(ViewsPublishRequest.class))).thenReturn(publishResponse(true));
+    }
+
+    @Test
+    void skipsAnUnchangedView() throws Exception {
+        AppHomeService appHomeService = appHomeService(false);
+
+        appHomeService.publishHomeView("U1", "xoxp-1");
+        appHomeService.publishHomeView("U1", "xoxp-1");
+
+        verify(client, times(1)).viewsPublish(any(ViewsPublishRequest.class));
+    }
+
+    @Test
+    void publishesAgainAfterAFailedPublish() throws Exception {
+        when(client.viewsPublish(any(ViewsPublishRequest.class))).thenReturn(publishResponse(false), publishResponse(true));
+        AppHomeService appHomeService = appHomeService(false);
+
+        appHomeService.publishHomeView("U1", "xoxp-1");
+        appHomeService.publishHomeView("U1", "xoxp-1");
+
+        verify(client, times(2)).viewsPublish(any(ViewsPublishRequest.class));
+    }
+
+    @Test
+    void republishesOnceTheHashIsTooOld() throws Exception {
+        AppHomeService appHomeService = appHomeService(false);
+        ReflectionTestUtils.setField(appHomeService, "viewHashMaxAgeMs", -1L);
+
+        appHomeService.publishHomeView("U1", "xoxp-1");
+        appHomeService.publishHomeView("U1", "xoxp-1");
+
+        verify(client, times(2)).viewsPublish(any(ViewsPublishRequest.class));
+    }
+
+    @Test
+    void skipsAViewAnotherInstancePublished() throws Exception {
+        ArgumentCaptor<HomeViewHash> stored = ArgumentCaptor.forClass(HomeViewHash.class);
+        appHomeService(true).publishHomeView("U1", "xoxp-1");
+        verify(homeViewHashRepository).save(stored.capture());
+
+        // A fresh instance has nothing cached and finds the hash in the shared store
+        when(homeViewHashRepository.findById("U1")).thenReturn(Optional.of(stored.getValue()));
+        appHomeService(true).publishHomeView("U1", "xoxp-1");
+
+        verify(client, times(1)).viewsPublish(any(ViewsPublishRequest.class));
+        verify(homeViewHashRepository, times(1)).save(any());
+    }
+
+    @Test
+    void keepsHashesInMemoryUnlessPersisted() throws Exception {
+        appHomeService(false).publishHomeView("U1", "xoxp-1");
+
+        verify(homeViewHashRepository, never()).save(any());
+        verify(homeViewHashRepository, never()).findById(any());
+    }
+
+    private AppHomeService appHomeService(boolean persist) {
+        AppHomeService appHomeService = spy(new AppHomeService(userService, timezoneService, homeViewHashRepository));
+        ReflectionTestUtils.setField(appHomeService, "persistViewHashes", persist);
+        ReflectionTestUtils.setField(appHomeService, "viewHashMaxAgeMs", 3_600_000L);
+        ReflectionTestUtils.setField(appHomeService, "viewHashMaxEntries", 100L);
+        appHomeService.initPublishedViews();
+        doReturn(client).when(appHomeService).methods(any());
+        return appHomeService;
+    }
+
+    private static ViewsPublishResponse publishResponse(boolean ok) {
+        ViewsPublishResponse response = new ViewsPublishResponse();
+        response.setOk(ok);
+        if (!ok) {
+            response.setError("internal_error");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,109 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DormancyServiceTest {
+
+    private static final Instant MONDAY_NINE = Instant.parse("2024-01-01T09:00:00Z");
+    private static final Instant TUESDAY_NINE = Instant.parse("2024-01-02T09:00:00Z");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final WorkingHoursCalendar workingHoursCalendar = mock(WorkingHoursCalendar.class);
+    private final DormancyService dormancyService = new DormancyService(userRepository, workingHoursCalendar);
+
+    @BeforeEach
+    void enable() {
+        ReflectionTestUtils.setField(dormancyService, "enabled", true);
+    }
+
+    @Test
+    void writesOneUpdatePerOpeningTime() {
+        when(workingHoursCalendar.nextWindowOpen("u1")).thenReturn(MONDAY_NINE);
+        when(workingHoursCalendar.nextWindowOpen("u2")).thenReturn(MONDAY_NINE);
+        when(workingHoursCalendar.nextWindowOpen("u3")).thenReturn(TUESDAY_NINE);
+
+        dormancyService.sleep(List.of("u1", "u2", "u3"));
+
+        verify(userRepository).setDormantUntil(argThat(ids -> Set.copyOf(ids).equals(Set.of("u1", "u2"))), eq(local(MONDAY_NINE)));
+        verify(userRepository).setDormantUntil(eq(List.of("u3")), eq(local(TUESDAY_NINE)));
+    }
+
+    @Test
+    void leavesUsersWithoutWorkingHoursAwake() {
+        when(workingHoursCalendar.nextWindowOpen("u1")).thenReturn(null);
+
+        dormancyService.sleep(List.of("u1"));
+
+        verify(userRepository, never()).setDormantUntil(anyCollection(), any());
+    }
+
+    @Test
+    void reschedulesByOverwritingTheMark() {
+        when(workingHoursCalendar.nextWindowOpen("u1")).thenReturn(MONDAY_NINE, TUESDAY_NINE);
+
+        dormancyService.sleep(List.of("u1"));
+        dormancyService.sleep(List.of("u1"));
+
+        verify(userRepository).setDormantUntil(List.of("u1"), local(MONDAY_NINE));
+        verify(userRepository).setDormantUntil(List.of("u1"), local(TUESDAY_NINE));
+        // Waking at the opening time needs no write: the poll query lets the user back in once the mark expires
+        verify(userRepository, never()).setDormantUntil(anyCollection(), isNull());
+    }
+
+    @Test
+    void wakeClearsTheMarkImmediately() {
+        when(workingHoursCalendar.nextWindowOpen("u1")).thenReturn(TUESDAY_NINE);
+        dormancyService.sleep(List.of("u1"));
+
+        dormancyService.wake("u1");
+
+        verify(userRepository).setDormantUntil(List.of("u1"), null);
+    }
+
+    @Test
+    void skipsAFailedUpdateAndKeepsTheOthers() {
+        when(workingHoursCalendar.nextWindowOpen("u1")).thenReturn(MONDAY_NINE);
+        when(workingHoursCalendar.nextWindowOpen("u2")).thenReturn(TUESDAY_NINE);
+        doThrow(new IllegalStateException("write failed"))
+                .when(userRepository).setDormantUntil(anyCollection(), eq(local(MONDAY_NINE)));
+
+        dormancyService.sleep(List.of("u1", "u2"));
+
+        // u1 was never marked, so it stays awake and a later cycle retries it
+        verify(userRepository).setDormantUntil(List.of("u2"), local(TUESDAY_NINE));
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(dormancyService, "enabled", false);
+
+        dormancyService.sleep(List.of("u1"));
+
+        verifyNoInteractions(userRepository, workingHoursCalendar);
+    }
+
+    private static LocalDateTime local(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,91 @@
+package com.trackify.trackify.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class HomeViewRefreshServiceTest {
+
+    private final AppHomeService appHomeService = mock(AppHomeService.class);
+    private final HomeViewRefreshService refreshService = new HomeViewRefreshService(appHomeService);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshService, "enabled", true);
+        ReflectionTestUtils.setField(refreshService, "recentWindowMs", 1_800_000L);
+        ReflectionTestUtils.setField(refreshService, "debounceMs", 0L);
+        ReflectionTestUtils.setField(refreshService, "maxPublishesPerTeamPerMinute", 50);
+    }
+
+    @AfterEach
+    void shutdown() {
+        refreshService.shutdown();
+    }
+
+    @Test
+    void collapsesABurstOfTrackChangesIntoOnePublish() throws Exception {
+        ReflectionTestUtils.setField(refreshService, "debounceMs", 200L);
+        refreshService.recordHomeOpened("U1", "T1", "xoxb-1");
+
+        refreshService.onTrackChanged("U1");
+        refreshService.onTrackChanged("U1");
+        refreshService.flushPendingRefreshes();
+        refreshService.onTrackChanged("U1");
+        verify(appHomeService, after(100).never()).publishHomeView(anyString(), anyString());
+
+        Thread.sleep(200);
+        refreshService.flushPendingRefreshes();
+        refreshService.flushPendingRefreshes();
+
+        verify(appHomeService, timeout(5000)).publishHomeView("U1", "xoxb-1");
+        verify(appHomeService, after(200).times(1)).publishHomeView(anyString(), anyString());
+    }
+
+    @Test
+    void capsPublishesPerTeamAndDefersTheRest() {
+        ReflectionTestUtils.setField(refreshService, "maxPublishesPerTeamPerMinute", 2);
+        for (String user : new String[]{"U1", "U2", "U3"}) {
+            refreshService.recordHomeOpened(user, "T1", "xoxb-1");
+            refreshService.onTrackChanged(user);
+        }
+        refreshService.recordHomeOpened("U4", "T2", "xoxb-2");
+        refreshService.onTrackChanged("U4");
+
+        refreshService.flushPendingRefreshes();
+        refreshService.flushPendingRefreshes();
+
+        // T1 spends its budget on two users and the third waits for the next window; T2 has its own budget
+        verify(appHomeService, timeout(5000).times(2)).publishHomeView(anyString(), eq("xoxb-1"));
+        verify(appHomeService, timeout(5000)).publishHomeView("U4", "xoxb-2");
+        verify(appHomeService, after(200).times(3)).publishHomeView(anyString(), anyString());
+    }
+
+    @Test
+    void leavesUsersWhoAreNotLookingAlone() {
+        refreshService.onTrackChanged("U1");
+        refreshService.flushPendingRefreshes();
+
+        verify(appHomeService, after(200).never()).publishHomeView(anyString(), anyString());
+    }
+
+    @Test
+    void stopsRefreshingOnceTheHomeWasOpenedTooLongAgo() {
+        ReflectionTestUtils.setField(refreshService, "recentWindowMs", -1L);
+        refreshService.recordHomeOpened("U1", "T1", "xoxb-1");
+        refreshService.onTrackChanged("U1");
+
+        refreshService.flushPendingRefreshes();
+
+        verify(appHomeService, after(200).never()).publishHomeView(anyString(), anyString());
+    }
+}
@@ -0,0 +1,49 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.repository.OAuthStateRepository;
+import com.trackify.trackify.util.OAuthStateSigner;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class MongoDBOAuthStateServiceTest {
+
+    private final OAuthStateRepository repository = mock(OAuthStateRepository.class);
+    private final OAuthStateSigner signer = new OAuthStateSigner("state-secret", "encryption-secret", 600, 100);
+    private final MongoDBOAuthStateService service = signedService();
+
+    @Test
+    void acceptsAnInstallStateOnce() throws Exception {
+        String state = service.generateNewStateValue();
+        service.addNewStateToDatastore(state);
+
+        assertTrue(service.isAvailableInDatabase(state));
+        service.deleteStateFromDatastore(state);
+        assertFalse(service.isAvailableInDatabase(state));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void rejectsAReplayedInstallState() {
+        String state = service.generateNewStateValue();
+
+        assertTrue(service.isAvailableInDatabase(state));
+        assertFalse(service.isAvailableInDatabase(state));
+    }
+
+    @Test
+    void rejectsStatesIssuedForAnotherFlow() {
+        // A Spotify connect state is bound to a user, not to the Slack install
+        assertFalse(service.isAvailableInDatabase(signer.issue("user-1")));
+    }
+
+    private MongoDBOAuthStateService signedService() {
+        MongoDBOAuthStateService stateService = new MongoDBOAuthStateService(repository, signer);
+        ReflectionTestUtils.setField(stateService, "store", "signed");
+        return stateService;
+    }
+}
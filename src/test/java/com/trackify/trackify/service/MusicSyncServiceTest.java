@@ -0,0 +1,422 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.model.CurrentlyPlayingTrackInfo;
+import com.trackify.trackify.model.SyncSession;
+import com.trackify.trackify.model.SyncSession.StatusPhase;
+import com.trackify.trackify.model.User;
+import com.trackify.trackify.model.UserSyncState;
+import com.trackify.trackify.exception.SpotifyRateLimitException;
+import com.trackify.trackify.exception.SpotifyTokenExpiredException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MusicSyncServiceTest {
+
+    private static final String STATUS_TEXT = "Song A - Artist";
+
+    private final UserService userService = mock(UserService.class);
+    private final SpotifyService spotifyService = mock(SpotifyService.class);
+    private final SlackService slackService = mock(SlackService.class);
+    private final WorkingHoursCalendar workingHoursCalendar = mock(WorkingHoursCalendar.class);
+    private final SyncSessionRegistry syncSessionRegistry = new SyncSessionRegistry(1000, 3_600_000);
+    private final SlackPresenceGate slackPresenceGate = mock(SlackPresenceGate.class);
+    private final UserMailboxes userMailboxes = new UserMailboxes(new SimpleMeterRegistry());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MusicSyncService musicSyncService = new MusicSyncService(userService, spotifyService, slackService,
+            workingHoursCalendar, mock(DormancyService.class), slackPresenceGate,
+            mock(HomeViewRefreshService.class), syncSessionRegistry, userMailboxes, meterRegistry);
+
+    private final User user = User.builder()
+            .id("u1")
+            .slackUserId("U1")
+            .encryptedSpotifyAccessToken("encrypted")
+            .active(true)
+            .build();
+    // Two Slack identities linked to the same Spotify account
+    private final User linked1 = linkedUser("l1", "L1");
+    private final User linked2 = linkedUser("l2", "L2");
+    // Stands in for the user_sync_state document, updated the way the repository would
+    private final UserSyncState syncState = UserSyncState.builder().userId("u1").build();
+
+    @BeforeEach
+    void setUp() {
+        musicSyncService.registerMetrics();
+        ReflectionTestUtils.setField(musicSyncService, "workerCount", 2);
+        ReflectionTestUtils.setField(musicSyncService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(musicSyncService, "rosterPageSize", 10);
+        ReflectionTestUtils.setField(musicSyncService, "dormancyBatchSize", 10);
+        ReflectionTestUtils.setField(musicSyncService, "readDeadlineMs", 1000L);
+
+        when(userService.findBySlackUserId("U1")).thenReturn(Optional.of(user));
+        when(userService.findBySlackUserId("L1")).thenReturn(Optional.of(linked1));
+        when(userService.getSyncState("u1")).thenAnswer(invocation -> copy(syncState));
+        when(userService.getSyncState(argThat(id -> id != null && id.startsWith("l"))))
+                .thenAnswer(invocation -> UserSyncState.builder().userId(invocation.getArgument(0)).build());
+        when(userService.getSyncStates(anyCollection())).thenReturn(Map.of());
+        when(workingHoursCalendar.isInWindow(anyString())).thenReturn(true);
+        when(slackPresenceGate.shouldPoll(any())).thenReturn(true);
+
+        doAnswer(invocation -> {
+            syncState.setCurrentlyPlayingSongId(invocation.getArgument(1));
+            return null;
+        }).when(userService).updateCurrentlyPlaying(eq("u1"), anyString(), anyString(), anyString());
+        doAnswer(invocation -> {
+            syncState.setCurrentlyPlayingSongId(null);
+            return null;
+        }).when(userService).clearCurrentlyPlaying("u1");
+        doAnswer(invocation -> {
+            syncState.setManualStatusSet(invocation.getArgument(1));
+            return null;
+        }).when(userService).setManualStatusFlag(eq("u1"), anyBoolean());
+        when(slackService.updateUserStatus(eq(user), anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            syncState.setLastSetStatusText(STATUS_TEXT);
+            return Instant.now().plusSeconds(3600).getEpochSecond();
+        });
+        // The comparison itself is SlackService's; only the Slack API calls are stubbed
+        when(slackService.hasManualStatusChange(any(), any(), anyBoolean(), any())).thenCallRealMethod();
+    }
+
+    @AfterEach
+    void shutdown() {
+        userMailboxes.shutdown();
+    }
+
+    @Test
+    void keepsAStatusSetMidTrackWhenPlaybackStops() {
+        playing("track-a");
+        musicSyncService.manualSync("U1");
+        assertEquals(StatusPhase.SHOWING, phase());
+
+        // The user sets their own status; the same track keeps playing and polls skip the status read
+        when(slackService.getCurrentStatusText(user)).thenReturn("In a meeting");
+        musicSyncService.manualSync("U1");
+        verify(slackService, never()).getCurrentStatusText(user);
+
+        stopped();
+        musicSyncService.manualSync("U1");
+
+        verify(slackService, never()).clearUserStatus(any());
+        verify(userService).setManualStatusFlag("u1", true);
+        assertEquals(StatusPhase.MANUAL, phase());
+        assertNull(syncState.getCurrentlyPlayingSongId());
+    }
+
+    @Test
+    void resumesOnTheNextTrackAfterKeepingAManualStatus() {
+        playing("track-a");
+        musicSyncService.manualSync("U1");
+        when(slackService.getCurrentStatusText(user)).thenReturn("In a meeting");
+        stopped();
+        musicSyncService.manualSync("U1");
+
+        playing("track-b");
+        musicSyncService.manualSync("U1");
+
+        verify(userService).setManualStatusFlag("u1", false);
+        assertFalse(syncState.isManualStatusSet());
+        assertEquals(StatusPhase.SHOWING, phase());
+    }
+
+    @Test
+    void clearsOurOwnStatusWhenPlaybackStops() {
+        playing("track-a");
+        musicSyncService.manualSync("U1");
+
+        when(slackService.getCurrentStatusText(user)).thenReturn(STATUS_TEXT);
+        stopped();
+        musicSyncService.manualSync("U1");
+
+        verify(slackService).clearUserStatus(user);
+        verify(userService, never()).setManualStatusFlag("u1", true);
+        assertEquals(StatusPhase.CLEARED, phase());
+    }
+
+    @Test
+    void leavesTheStatusAloneWhenItCannotBeRead() {
+        playing("track-a");
+        musicSyncService.manualSync("U1");
+
+        when(slackService.getCurrentStatusText(user)).thenReturn(null);
+        stopped();
+        musicSyncService.manualSync("U1");
+
+        verify(slackService, never()).clearUserStatus(any());
+        // Still recorded as playing, so the next poll tries the clear again
+        assertEquals("track-a", syncState.getCurrentlyPlayingSongId());
+    }
+
+    @Test
+    void leavesAFlaggedManualStatusWithoutReadingIt() {
+        playing("track-a");
+        musicSyncService.manualSync("U1");
+        syncState.setManualStatusSet(true);
+
+        stopped();
+        musicSyncService.manualSync("U1");
+
+        verify(slackService, never()).getCurrentStatusText(user);
+        verify(slackService, never()).clearUserStatus(any());
+        assertTrue(syncState.isManualStatusSet());
+        assertEquals(StatusPhase.MANUAL, phase());
+    }
+
+    @Test
+    void skipsTheUserWhenTheParallelReadsMissTheDeadline() {
+        ReflectionTestUtils.setField(musicSyncService, "parallelReadsEnabled", true);
+        ReflectionTestUtils.setField(musicSyncService, "readDeadlineMs", 200L);
+        // Playing already and nothing known about the status yet, so both reads run in parallel
+        syncState.setCurrentlyPlayingSongId("track-a");
+        syncState.setLastSetStatusText(STATUS_TEXT);
+        playing("track-b");
+        when(slackService.getCurrentStatusText(user)).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return STATUS_TEXT;
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(3), () -> musicSyncService.manualSync("U1"));
+
+        verify(slackService, never()).updateUserStatus(any(), anyString(), anyString(), any(), any());
+        verify(slackService, never()).clearUserStatus(any());
+        assertEquals("track-a", syncState.getCurrentlyPlayingSongId());
+    }
+
+    @Test
+    void sharesOnePlaybackReadAcrossLinkedIdentities() {
+        when(spotifyService.readCurrentlyPlayingTrack(any())).thenReturn(track("track-a"));
+
+        runCycle(linked1, linked2);
+
+        verify(spotifyService, times(1)).readCurrentlyPlayingTrack(any());
+        verify(slackService).updateUserStatus(eq(linked1), anyString(), anyString(), any(), any());
+        verify(slackService).updateUserStatus(eq(linked2), anyString(), anyString(), any(), any());
+        assertEquals(1, sharedReads());
+    }
+
+    @Test
+    void readsWithTheirOwnTokenWhenTheSharedReadFails() {
+        // Both identities are showing a track, so a failure taken for "nothing playing" would clear them
+        when(userService.getSyncState(argThat(id -> id != null && id.startsWith("l")))).thenAnswer(invocation -> UserSyncState.builder()
+                .userId(invocation.getArgument(0))
+                .currentlyPlayingSongId("track-a")
+                .lastSetStatusText(STATUS_TEXT)
+                .build());
+        AtomicInteger reads = new AtomicInteger();
+        when(spotifyService.readCurrentlyPlayingTrack(any())).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                Thread.sleep(100);
+                throw new SpotifyTokenExpiredException("The access token expired");
+            }
+            return track("track-a");
+        });
+
+        runCycle(linked1, linked2);
+
+        // The failure stays with the identity whose read it was; nobody's status is cleared
+        assertEquals(2, reads.get());
+        verify(slackService, never()).clearUserStatus(any());
+        verify(slackService, times(1)).updateUserStatus(any(), anyString(), anyString(), any(), any());
+        assertEquals(0, sharedReads());
+    }
+
+    @Test
+    void leavesTheStatusAloneWhenTheReadFails() {
+        playing("track-a");
+        musicSyncService.manualSync("U1");
+
+        when(spotifyService.readCurrentlyPlayingTrack(user)).thenThrow(new SpotifyRateLimitException("Too many requests"));
+        musicSyncService.manualSync("U1");
+
+        verify(slackService, never()).clearUserStatus(any());
+        assertEquals("track-a", syncState.getCurrentlyPlayingSongId());
+        assertEquals(StatusPhase.SHOWING, phase());
+    }
+
+    @Test
+    void releasesWaitersWhenTheSharedReadDiesWithAnError() {
+        AtomicInteger reads = new AtomicInteger();
+        when(spotifyService.readCurrentlyPlayingTrack(any())).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                Thread.sleep(100);
+                throw new StackOverflowError();
+            }
+            return track("track-a");
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> runCycle(linked1, linked2));
+
+        assertEquals(2, reads.get());
+        verify(slackService, times(1)).updateUserStatus(any(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void stopsWaitingForASharedReadAtTheReadDeadline() throws Exception {
+        ReflectionTestUtils.setField(musicSyncService, "readDeadlineMs", 200L);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(spotifyService.readCurrentlyPlayingTrack(any())).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                release.await();
+            }
+            return track("track-a");
+        });
+
+        CompletableFuture<Void> cycle = CompletableFuture.runAsync(() -> runCycle(linked1, linked2));
+
+        // The other identity's status is set while the shared read is still hanging
+        verify(slackService, timeout(2000)).updateUserStatus(any(), anyString(), anyString(), any(), any());
+        release.countDown();
+        cycle.get(5, TimeUnit.SECONDS);
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void manualSyncDoesNotJoinAQueuedScheduledSync() throws Exception {
+        when(spotifyService.readCurrentlyPlayingTrack(any())).thenReturn(track("track-a"));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> busy = CompletableFuture.runAsync(() -> userMailboxes.run("l1", "playback", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        // Both syncs queue behind the running operation; the manual one must get its own fresh read
+        CompletableFuture<Void> cycle = CompletableFuture.runAsync(() -> runCycle(linked1));
+        Thread.sleep(100);
+        CompletableFuture<Void> manual = CompletableFuture.runAsync(() -> musicSyncService.manualSync("L1"));
+        Thread.sleep(100);
+        release.countDown();
+
+        busy.get(5, TimeUnit.SECONDS);
+        cycle.get(5, TimeUnit.SECONDS);
+        manual.get(5, TimeUnit.SECONDS);
+        verify(spotifyService, times(2)).readCurrentlyPlayingTrack(linked1);
+    }
+
+    @Test
+    void backsOffAnIdleAccountUntilTheUserInteracts() {
+        hibernateAfter(2);
+        stopped();
+
+        runCycle(user);
+        runCycle(user);
+        SyncSession session = syncSessionRegistry.get("u1");
+        assertEquals(1, session.getHibernationDepth());
+        assertTrue(session.getNextPollAt() > System.currentTimeMillis());
+
+        // Not due yet: the cycle leaves the account alone
+        runCycle(user);
+        verify(spotifyService, times(2)).readCurrentlyPlayingTrack(user);
+
+        musicSyncService.wakeUp("U1");
+        runCycle(user);
+        verify(spotifyService, times(3)).readCurrentlyPlayingTrack(user);
+        verify(slackPresenceGate).markActive("u1");
+    }
+
+    @Test
+    void pollsEveryCycleAgainOncePlaybackStarts() {
+        hibernateAfter(1);
+        stopped();
+        runCycle(user);
+        SyncSession session = syncSessionRegistry.get("u1");
+        assertEquals(1, session.getHibernationDepth());
+
+        session.setNextPollAt(0);
+        playing("track-a");
+        runCycle(user);
+
+        assertEquals(0, session.getHibernationDepth());
+        assertEquals(0, session.getIdlePolls());
+        assertTrue(session.isPollDue(System.currentTimeMillis()));
+    }
+
+    private void runCycle(User... users) {
+        when(userService.streamPollableUsers(any())).thenAnswer(invocation -> Stream.of(users));
+        musicSyncService.syncMusicStatus();
+    }
+
+    private void hibernateAfter(int idlePolls) {
+        ReflectionTestUtils.setField(musicSyncService, "hibernationEnabled", true);
+        ReflectionTestUtils.setField(musicSyncService, "idlePollsBeforeBackoff", idlePolls);
+        ReflectionTestUtils.setField(musicSyncService, "pollingIntervalMs", 10_000L);
+        ReflectionTestUtils.setField(musicSyncService, "maxHibernationIntervalMs", 600_000L);
+    }
+
+    private double sharedReads() {
+        return meterRegistry.counter("trackify.sync.spotify.shared-reads").count();
+    }
+
+    private static User linkedUser(String id, String slackUserId) {
+        return User.builder()
+                .id(id)
+                .slackUserId(slackUserId)
+                .spotifyUserId("spotify-account")
+                .encryptedSpotifyAccessToken("encrypted")
+                .active(true)
+                .build();
+    }
+
+    private static CurrentlyPlayingTrackInfo track(String trackId) {
+        return CurrentlyPlayingTrackInfo.builder()
+                .trackId(trackId)
+                .trackName("Song")
+                .artistName("Artist")
+                .isPlaying(true)
+                .build();
+    }
+
+    private void playing(String trackId) {
+        when(spotifyService.readCurrentlyPlayingTrack(user)).thenReturn(track(trackId));
+    }
+
+    private void stopped() {
+        when(spotifyService.readCurrentlyPlayingTrack(user)).thenReturn(null);
+    }
+
+    private StatusPhase phase() {
+        return syncSessionRegistry.get("u1").getStatusPhase();
+    }
+
+    private static UserSyncState copy(UserSyncState state) {
+        return UserSyncState.builder()
+                .userId(state.getUserId())
+                .currentlyPlayingSongId(state.getCurrentlyPlayingSongId())
+                .lastSetStatusText(state.getLastSetStatusText())
+                .manualStatusSet(state.isManualStatusSet())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.trackify.trackify.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RecentWriteTrackerTest {
+
+    private final CacheInvalidationBus cacheInvalidationBus = mock(CacheInvalidationBus.class);
+
+    @Test
+    void sendsOnlySharedMarksToTheOtherNodes() {
+        RecentWriteTracker tracker = new RecentWriteTracker(cacheInvalidationBus, true, 90, 1000);
+
+        tracker.markWritten("users", "U1", true);
+        tracker.markWritten("user_sync_state", "u1", false);
+
+        assertTrue(tracker.isRecentlyWritten("users", "U1"));
+        assertTrue(tracker.isRecentlyWritten("user_sync_state", "u1"));
+        assertFalse(tracker.isRecentlyWritten("users", "U2"));
+        verify(cacheInvalidationBus).publish("recentWrites", "users:U1");
+        verify(cacheInvalidationBus, never()).publish("recentWrites", "user_sync_state:u1");
+    }
+
+    @Test
+    void takesMarksFromTheOtherNodes() {
+        RecentWriteTracker tracker = new RecentWriteTracker(cacheInvalidationBus, true, 90, 1000);
+        Consumer<String> listener = listener();
+
+        listener.accept("userSettings:u1");
+
+        assertTrue(tracker.isRecentlyWritten("userSettings", "u1"));
+        assertFalse(tracker.isRecentlyWritten("userSettings", "u2"));
+    }
+
+    @Test
+    void treatsEverythingAsRecentWhenMarksMayHaveBeenLost() {
+        RecentWriteTracker tracker = new RecentWriteTracker(cacheInvalidationBus, true, 90, 1000);
+
+        listener().accept(CacheInvalidationBus.ALL_KEYS);
+
+        assertTrue(tracker.isRecentlyWritten("users", "anyone"));
+    }
+
+    @Test
+    void doesNothingWithoutReadRouting() {
+        RecentWriteTracker tracker = new RecentWriteTracker(cacheInvalidationBus, false, 90, 1000);
+
+        tracker.markWritten("users", "U1", true);
+
+        assertFalse(tracker.isRecentlyWritten("users", "U1"));
+        verify(cacheInvalidationBus, never()).publish(anyString(), anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String> listener() {
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(cacheInvalidationBus).register(eq("recentWrites"), listener.capture());
+        return listener.getValue();
+    }
+}
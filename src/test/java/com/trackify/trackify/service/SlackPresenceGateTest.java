@@ -0,0 +1,114 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SlackPresenceGateTest {
+
+    private final SlackService slackService = mock(SlackService.class);
+    private final UserService userService = mock(UserService.class);
+    private final SlackPresenceGate gate = new SlackPresenceGate(slackService, userService, 1000, 900_000);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(gate, "enabled", true);
+        ReflectionTestUtils.setField(gate, "awayRecheckMs", 60_000L);
+        ReflectionTestUtils.setField(gate, "activeRecheckMs", 300_000L);
+        ReflectionTestUtils.setField(gate, "maxLookupsPerSweep", 2);
+    }
+
+    @Test
+    void looksUpAtMostTheConfiguredNumberOfUsersPerSweep() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(user(i, false));
+        }
+        users.forEach(gate::shouldPoll);
+
+        gate.sweep();
+        verify(slackService, times(2)).isUserAway(any());
+
+        // The rest stay queued for the following sweeps
+        gate.sweep();
+        gate.sweep();
+        gate.sweep();
+        verify(slackService, times(5)).isUserAway(any());
+    }
+
+    @Test
+    void rechecksAwayUsersFirst() {
+        ReflectionTestUtils.setField(gate, "awayRecheckMs", 0L);
+        ReflectionTestUtils.setField(gate, "maxLookupsPerSweep", 1);
+        User away = user(0, true);
+        gate.shouldPoll(away);
+        gate.sweep();
+        assertFalse(gate.shouldPoll(away));
+
+        clearInvocations(slackService);
+        for (int i = 1; i <= 3; i++) {
+            gate.shouldPoll(user(i, false));
+        }
+        gate.sweep();
+
+        verify(slackService).isUserAway(away);
+        verify(slackService, times(1)).isUserAway(any());
+    }
+
+    @Test
+    void pausesAwayUsersAndFailsOpenOnUnknownPresence() {
+        User away = user(0, true);
+        User unknown = user(1, null);
+
+        assertTrue(gate.shouldPoll(away));
+        assertTrue(gate.shouldPoll(unknown));
+        gate.sweep();
+
+        assertFalse(gate.shouldPoll(away));
+        assertTrue(gate.shouldPoll(unknown));
+    }
+
+    @Test
+    void pollsAgainOnceTheUserInteracts() {
+        User away = user(0, true);
+        gate.shouldPoll(away);
+        gate.sweep();
+
+        gate.markActive(away.getId());
+
+        assertTrue(gate.shouldPoll(away));
+    }
+
+    @Test
+    void neverLooksUpWhenDisabled() {
+        ReflectionTestUtils.setField(gate, "enabled", false);
+        User away = user(0, true);
+
+        assertTrue(gate.shouldPoll(away));
+        gate.sweep();
+
+        verifyNoInteractions(slackService, userService);
+    }
+
+    private User user(int index, Boolean away) {
+        User user = User.builder().id("u" + index).slackUserId("U" + index).build();
+        when(userService.findBySlackUserId(user.getSlackUserId())).thenReturn(Optional.of(user));
+        when(slackService.isUserAway(user)).thenReturn(away);
+        return user;
+    }
+}
@@ -0,0 +1,127 @@
+package com.trackify.trackify.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.trackify.trackify.config.SpotifyConfig;
+import com.trackify.trackify.exception.SpotifyException;
+import com.trackify.trackify.exception.SpotifyRateLimitException;
+import com.trackify.trackify.exception.SpotifyTokenExpiredException;
+import com.trackify.trackify.model.User;
+import com.trackify.trackify.util.OAuthStateSigner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.michaelthelin.spotify.SpotifyApi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the playback read against a local stand-in for the Spotify Web API, so failures come out of the
+ * client library exactly as they would in production.
+ */
+class SpotifyServiceTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+    private final User user = User.builder().id("u1").slackUserId("U1").encryptedSpotifyAccessToken("encrypted").build();
+
+    private HttpServer server;
+    private volatile int status;
+    private volatile String body;
+    private volatile Map<String, String> headers = Map.of();
+    private SpotifyService spotifyService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/me/player", exchange -> {
+            headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        when(userService.getDecryptedSpotifyAccessToken(user)).thenReturn("access-token");
+        spotifyService = spy(new SpotifyService(mock(SpotifyConfig.class), userService, tokenValidationService,
+                mock(OAuthStateSigner.class)));
+        doReturn(SpotifyApi.builder()
+                .setScheme("http")
+                .setHost("localhost")
+                .setPort(server.getAddress().getPort())
+                .setAccessToken("access-token")
+                .build()).when(spotifyService).getSpotifyApi(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void returnsNullWhenNothingIsPlaying() {
+        respond(204, null);
+
+        assertNull(spotifyService.readCurrentlyPlayingTrack(user));
+    }
+
+    @Test
+    void throwsAndInvalidatesOnARejectedToken() {
+        respond(401, "{\"error\":{\"status\":401,\"message\":\"The access token expired\"}}");
+
+        assertThrows(SpotifyTokenExpiredException.class, () -> spotifyService.readCurrentlyPlayingTrack(user));
+        verify(tokenValidationService).markUserAsInvalidated(user, "The access token expired");
+    }
+
+    @Test
+    void throwsOnRateLimiting() {
+        headers = Map.of("Retry-After", "3");
+        respond(429, "{\"error\":{\"status\":429,\"message\":\"API rate limit exceeded\"}}");
+
+        assertThrows(SpotifyRateLimitException.class, () -> spotifyService.readCurrentlyPlayingTrack(user));
+        verify(tokenValidationService, never()).markUserAsInvalidated(any(), anyString());
+    }
+
+    @Test
+    void throwsOnServerErrors() {
+        respond(503, "{\"error\":{\"status\":503,\"message\":\"Service unavailable\"}}");
+
+        assertThrows(SpotifyException.class, () -> spotifyService.readCurrentlyPlayingTrack(user));
+    }
+
+    @Test
+    void throwsWhenSpotifyCannotBeReached() {
+        server.stop(0);
+
+        assertThrows(SpotifyException.class, () -> spotifyService.readCurrentlyPlayingTrack(user));
+    }
+
+    @Test
+    void getCurrentlyPlayingTrackStillReportsFailuresAsNull() {
+        respond(503, "{\"error\":{\"status\":503,\"message\":\"Service unavailable\"}}");
+
+        assertNull(spotifyService.getCurrentlyPlayingTrack(user));
+    }
+
+    private void respond(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+}
@@ -0,0 +1,167 @@
+package com.trackify.trackify.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.trackify.trackify.model.MigrationCheckpoint;
+import com.trackify.trackify.util.EncryptionUtil;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenReencryptionJobTest {
+
+    private static final String CHECKPOINT_ID = "token-reencryption:v2:k2";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserService userService = mock(UserService.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final EncryptionUtil oldKey = encryptionUtil("secret", "k1", "", "v1", false);
+    private final EncryptionUtil encryptionUtil = encryptionUtil("new-secret", "k2", "k1:secret", "v2", true);
+    private final TokenReencryptionJob job = new TokenReencryptionJob(mongoTemplate, encryptionUtil, userService);
+
+    private final ObjectId processedUser = new ObjectId();
+    private final ObjectId staleUser = new ObjectId();
+    private final ObjectId currentUser = new ObjectId();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(job, "enabled", true);
+        ReflectionTestUtils.setField(job, "batchSize", 10);
+        ReflectionTestUtils.setField(job, "maxUsersPerSecond", 0);
+        ReflectionTestUtils.setField(job, "leaseSeconds", 300L);
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "users")).thenReturn(bulk);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getModifiedCount()).thenReturn(1);
+        when(bulk.execute()).thenReturn(result);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MigrationCheckpoint.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @AfterEach
+    void stop() {
+        job.stop();
+    }
+
+    @Test
+    void resumesAfterTheCheckpointWithConditionalUpdates() {
+        // A previous run got through the first user before it stopped
+        MigrationCheckpoint checkpoint = MigrationCheckpoint.builder()
+                .id(CHECKPOINT_ID)
+                .lastProcessedId(processedUser)
+                .scannedCount(1)
+                .build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(MigrationCheckpoint.class)))
+                .thenReturn(checkpoint);
+        String staleToken = oldKey.encrypt("spotify-access");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("users"))).thenReturn(Stream.of(
+                new Document("_id", staleUser).append("slackUserId", "U2").append("encryptedSpotifyAccessToken", staleToken),
+                new Document("_id", currentUser).append("slackUserId", "U3")
+                        .append("encryptedSpotifyAccessToken", encryptionUtil.encrypt("spotify-access"))));
+
+        job.run(null);
+
+        ArgumentCaptor<Update> checkpointUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, timeout(5000).times(2))
+                .updateFirst(any(Query.class), checkpointUpdates.capture(), eq(MigrationCheckpoint.class));
+
+        ArgumentCaptor<Query> scan = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(scan.capture(), eq(Document.class), eq("users"));
+        String scanJson = scan.getValue().getQueryObject().toJson();
+        assertTrue(scanJson.contains("\"$gt\": {\"$oid\": \"" + processedUser.toHexString() + "\"}"), scanJson);
+
+        // Only the stale token is rewritten, and only if it still holds the ciphertext that was read
+        ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> rewrite = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(1)).updateOne(filter.capture(), rewrite.capture());
+        Document filterObject = filter.getValue().getQueryObject();
+        assertEquals(staleUser, filterObject.get("_id"));
+        assertEquals(staleToken, filterObject.get("encryptedSpotifyAccessToken"));
+        String reencrypted = rewrite.getValue().getUpdateObject().get("$set", Document.class).getString("encryptedSpotifyAccessToken");
+        assertTrue(encryptionUtil.isCurrent(reencrypted));
+        assertEquals("spotify-access", encryptionUtil.decrypt(reencrypted));
+        verify(userService).evictCachedUser("U2");
+        verify(userService, never()).evictCachedUser("U3");
+
+        Document progress = checkpointUpdates.getAllValues().get(0).getUpdateObject().get("$set", Document.class);
+        assertEquals(currentUser, progress.get("lastProcessedId"));
+        assertEquals(3L, progress.get("scannedCount"));
+        assertEquals(1L, progress.get("updatedCount"));
+        assertTrue(checkpointUpdates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).containsKey("completedAt"));
+    }
+
+    @Test
+    void skipsACompletedMigration() {
+        when(mongoTemplate.findById(CHECKPOINT_ID, MigrationCheckpoint.class)).thenReturn(MigrationCheckpoint.builder()
+                .id(CHECKPOINT_ID)
+                .completedAt(LocalDateTime.now())
+                .build());
+
+        job.run(null);
+
+        verify(mongoTemplate, timeout(5000)).findById(CHECKPOINT_ID, MigrationCheckpoint.class);
+        verify(mongoTemplate, after(200).never()).stream(any(Query.class), eq(Document.class), eq("users"));
+    }
+
+    @Test
+    void stopsWhenAnotherNodeTookTheLeaseOver() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(MigrationCheckpoint.class)))
+                .thenReturn(MigrationCheckpoint.builder().id(CHECKPOINT_ID).build());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MigrationCheckpoint.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        ReflectionTestUtils.setField(job, "batchSize", 1);
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("users"))).thenReturn(Stream.of(
+                new Document("_id", staleUser).append("slackUserId", "U2"),
+                new Document("_id", currentUser).append("slackUserId", "U3")));
+
+        job.run(null);
+
+        // The first checkpoint misses the lease, so the second user is never read and nothing is marked completed
+        ArgumentCaptor<Update> checkpointUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, timeout(5000).times(2))
+                .updateFirst(any(Query.class), checkpointUpdates.capture(), eq(MigrationCheckpoint.class));
+        Document progress = checkpointUpdates.getAllValues().get(0).getUpdateObject().get("$set", Document.class);
+        assertEquals(staleUser, progress.get("lastProcessedId"));
+        Document release = checkpointUpdates.getAllValues().get(1).getUpdateObject();
+        assertTrue(release.containsKey("$unset"));
+        assertNull(release.get("$set"));
+    }
+
+    private static EncryptionUtil encryptionUtil(String secret, String activeKeyId, String previousKeys,
+                                                 String writeFormat, boolean writePrefixed) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "secretKeyString", secret);
+        ReflectionTestUtils.setField(util, "activeKeyId", activeKeyId);
+        ReflectionTestUtils.setField(util, "previousKeys", previousKeys);
+        ReflectionTestUtils.setField(util, "legacyKeyId", "k1");
+        ReflectionTestUtils.setField(util, "writeFormat", writeFormat);
+        ReflectionTestUtils.setField(util, "writePrefixed", writePrefixed);
+        util.initKeyring();
+        return util;
+    }
+}
@@ -0,0 +1,156 @@
+package com.trackify.trackify.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserMailboxesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserMailboxes mailboxes = new UserMailboxes(meterRegistry);
+
+    @AfterEach
+    void shutdown() {
+        mailboxes.shutdown();
+    }
+
+    @Test
+    void coalescesIdenticalOperationsWaitingBehindARunningOne() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = block("u1", release);
+
+        AtomicInteger syncs = new AtomicInteger();
+        List<CompletableFuture<Integer>> clicks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            clicks.add(CompletableFuture.supplyAsync(() -> mailboxes.callCoalescing("u1", "sync", syncs::incrementAndGet)));
+        }
+        // The first click queues a sync, the other two join it
+        await(() -> coalesced() == 2);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Integer> click : clicks) {
+            assertEquals(1, click.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, syncs.get());
+    }
+
+    @Test
+    void doesNotJoinTheOperationAlreadyRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger syncs = new AtomicInteger();
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> mailboxes.callCoalescing("u1", "sync", () -> {
+            started.countDown();
+            release.await();
+            return syncs.incrementAndGet();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The running sync may already have read stale state, so a new request must get a sync of its own
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> mailboxes.callCoalescing("u1", "sync", syncs::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, coalesced());
+    }
+
+    @Test
+    void keepsOtherKindsAndPlainCallsQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = block("u1", release);
+
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> sync = CompletableFuture.supplyAsync(() -> mailboxes.callCoalescing("u1", "sync", runs::incrementAndGet));
+        CompletableFuture<Integer> settings = CompletableFuture.supplyAsync(() -> mailboxes.callCoalescing("u1", "settings", runs::incrementAndGet));
+        CompletableFuture<Integer> plain = CompletableFuture.supplyAsync(() -> mailboxes.call("u1", "sync", runs::incrementAndGet));
+        // Give all three time to queue behind the running operation
+        Thread.sleep(100);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        sync.get(5, TimeUnit.SECONDS);
+        settings.get(5, TimeUnit.SECONDS);
+        plain.get(5, TimeUnit.SECONDS);
+        assertEquals(3, runs.get());
+        assertEquals(0, coalesced());
+    }
+
+    @Test
+    void failsEveryCoalescedCallerWithTheSameError() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = block("u1", release);
+
+        IllegalStateException failure = new IllegalStateException("spotify down");
+        List<CompletableFuture<Object>> clicks = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            clicks.add(CompletableFuture.supplyAsync(() -> mailboxes.callCoalescing("u1", "sync", () -> {
+                throw failure;
+            })));
+        }
+        await(() -> coalesced() == 1);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Object> click : clicks) {
+            Exception thrown = assertThrows(Exception.class, () -> click.get(5, TimeUnit.SECONDS));
+            assertSame(failure, thrown.getCause());
+        }
+    }
+
+    @Test
+    void runsNestedCallsForTheSameUserInline() {
+        int result = mailboxes.call("u1", "settings", () -> mailboxes.callCoalescing("u1", "sync", () -> 42));
+
+        assertEquals(42, result);
+    }
+
+    @Test
+    void dropsTheMailboxOnceItsQueueIsEmpty() throws Exception {
+        mailboxes.call("u1", "sync", () -> null);
+
+        await(() -> mailboxes.activeCount() == 0);
+        assertEquals(0, mailboxes.activeCount());
+    }
+
+    /**
+     * Occupies the user's mailbox until the latch is released.
+     */
+    private CompletableFuture<Void> block(String userId, CountDownLatch release) throws InterruptedException {
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> mailboxes.run(userId, "playback", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        await(() -> mailboxes.activeCount() == 1);
+        return running;
+    }
+
+    private double coalesced() {
+        return meterRegistry.counter("trackify.mailbox.coalesced").count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
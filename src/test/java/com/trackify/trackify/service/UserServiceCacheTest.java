@@ -0,0 +1,144 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.config.CacheConfig;
+import com.trackify.trackify.model.User;
+import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.repository.SecondaryReadRepository;
+import com.trackify.trackify.repository.UserRepository;
+import com.trackify.trackify.repository.UserSettingsRepository;
+import com.trackify.trackify.repository.UserSyncStateRepository;
+import com.trackify.trackify.util.EncryptionUtil;
+import com.trackify.trackify.util.TokenVault;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs UserService behind the real cache proxy and CacheConfig, so a write is checked against what the next read serves.
+ */
+@SpringJUnitConfig(UserServiceCacheTest.Config.class)
+class UserServiceCacheTest {
+
+    @Configuration
+    @Import({CacheConfig.class, UserService.class})
+    static class Config {
+
+        @Bean(destroyMethod = "shutdown")
+        UserMailboxes userMailboxes() {
+            return new UserMailboxes(new SimpleMeterRegistry());
+        }
+    }
+
+    @MockitoBean
+    private UserRepository userRepository;
+    @MockitoBean
+    private UserSettingsRepository userSettingsRepository;
+    @MockitoBean
+    private UserSyncStateRepository userSyncStateRepository;
+    @MockitoBean
+    private EncryptionUtil encryptionUtil;
+    @MockitoBean
+    private TokenVault tokenVault;
+    @MockitoBean
+    private CacheInvalidationBus cacheInvalidationBus;
+    @MockitoBean
+    private SecondaryReadRepository secondaryReadRepository;
+    @MockitoBean
+    private RecentWriteTracker recentWriteTracker;
+    @MockitoBean
+    private WorkingHoursCalendar workingHoursCalendar;
+    @MockitoBean
+    private DormancyService dormancyService;
+    @MockitoBean
+    private SyncSessionRegistry syncSessionRegistry;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final User user = User.builder().id("u1").slackUserId("U1").active(true).build();
+    private final UserSettings settings = UserSettings.builder().userId("u1").defaultEmoji(":musical_note:").build();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        when(userRepository.findBySlackUserId("U1")).thenReturn(Optional.of(user));
+        when(userRepository.findById("u1")).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userSettingsRepository.findByUserId("u1")).thenReturn(Optional.of(settings));
+        when(userSettingsRepository.save(any(UserSettings.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(encryptionUtil.encrypt(anyString())).thenReturn("encrypted");
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        userService.findBySlackUserId("U1");
+        userService.findBySlackUserId("U1");
+        userService.getUserSettings("u1");
+        userService.getUserSettings("u1");
+
+        verify(userRepository, times(1)).findBySlackUserId("U1");
+        verify(userSettingsRepository, times(1)).findByUserId("u1");
+    }
+
+    @Test
+    void doesNotCacheAMissingUser() {
+        when(userRepository.findBySlackUserId("U2")).thenReturn(Optional.empty());
+
+        userService.findBySlackUserId("U2");
+        userService.findBySlackUserId("U2");
+
+        verify(userRepository, times(2)).findBySlackUserId("U2");
+    }
+
+    @Test
+    void evictsTheUserOnWrite() {
+        userService.findBySlackUserId("U1");
+
+        userService.createOrUpdateUser("U1", "T1", "xoxp-1");
+        userService.findBySlackUserId("U1");
+
+        // One read before the write, one inside it, one after the eviction
+        verify(userRepository, times(3)).findBySlackUserId("U1");
+        verify(cacheInvalidationBus).publish(CacheConfig.USERS_CACHE, "U1");
+    }
+
+    @Test
+    void evictsTheUserWhenTheirSpotifyTokensChange() {
+        userService.findBySlackUserId("U1");
+
+        userService.updateSpotifyTokens("u1", "spotify-1", "access", "refresh", 3600);
+        userService.findBySlackUserId("U1");
+
+        verify(userRepository, times(2)).findBySlackUserId("U1");
+        verify(tokenVault).evictUser("u1");
+    }
+
+    @Test
+    void evictsTheSettingsOnWrite() {
+        userService.getUserSettings("u1");
+
+        userService.updateDefaultEmoji("u1", ":headphones:");
+        userService.getUserSettings("u1");
+
+        // One read before the write, one inside it, one after the eviction
+        verify(userSettingsRepository, times(3)).findByUserId("u1");
+        verify(cacheInvalidationBus).publish(CacheConfig.USER_SETTINGS_CACHE, "u1");
+    }
+}
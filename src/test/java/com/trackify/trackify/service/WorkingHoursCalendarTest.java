@@ -0,0 +1,133 @@
+package com.trackify.trackify.service;
+
+import com.trackify.trackify.model.UserSettings;
+import com.trackify.trackify.model.WorkingHoursWindow;
+import com.trackify.trackify.repository.UserSettingsRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkingHoursCalendarTest {
+
+    // 2024-01-01 is a Monday, so the UTC week starts at midnight of that day
+    private static final String MONDAY = "2024-01-01T";
+    private static final String TUESDAY = "2024-01-02T";
+    private static final String WEDNESDAY = "2024-01-03T";
+    private static final String SUNDAY = "2024-01-07T";
+    private static final String NEXT_MONDAY = "2024-01-08T";
+
+    private final UserSettingsRepository settingsRepository = mock(UserSettingsRepository.class);
+    private final WorkingHoursCalendar calendar = new WorkingHoursCalendar(settingsRepository, mock(CacheInvalidationBus.class));
+
+    @Test
+    void opensAndClosesOnTheWindowEdges() {
+        schedule(window(DayOfWeek.MONDAY, "09:00", "17:00"));
+
+        assertInWindowAt(MONDAY + "08:59:00Z", false);
+        assertInWindowAt(MONDAY + "09:00:00Z", true);
+        assertInWindowAt(MONDAY + "16:59:59Z", true);
+        assertInWindowAt(MONDAY + "17:00:00Z", false);
+        assertInWindowAt(TUESDAY + "09:00:00Z", false);
+    }
+
+    @Test
+    void appliesEdgesSkippedBetweenCycles() {
+        schedule(window(DayOfWeek.MONDAY, "09:00", "10:00"), window(DayOfWeek.MONDAY, "11:00", "12:00"));
+
+        assertInWindowAt(MONDAY + "08:00:00Z", false);
+        // Jumping over a whole window leaves the user out, landing inside the next one brings them in
+        assertInWindowAt(MONDAY + "10:30:00Z", false);
+        assertInWindowAt(MONDAY + "11:30:00Z", true);
+        assertInWindowAt(MONDAY + "13:00:00Z", false);
+    }
+
+    @Test
+    void followsWindowsPastMidnight() {
+        schedule(window(DayOfWeek.TUESDAY, "22:00", "02:00"));
+
+        assertInWindowAt(TUESDAY + "21:59:00Z", false);
+        assertInWindowAt(TUESDAY + "22:00:00Z", true);
+        assertInWindowAt(WEDNESDAY + "01:59:00Z", true);
+        assertInWindowAt(WEDNESDAY + "02:00:00Z", false);
+    }
+
+    @Test
+    void carriesWindowsAcrossTheWeekBoundary() {
+        schedule(window(DayOfWeek.SUNDAY, "23:00", "01:00"));
+
+        assertInWindowAt(SUNDAY + "22:59:00Z", false);
+        assertInWindowAt(SUNDAY + "23:59:00Z", true);
+        // The new week is recompiled; its first minute is already inside the window
+        assertInWindowAt(NEXT_MONDAY + "00:00:00Z", true);
+        assertInWindowAt(NEXT_MONDAY + "01:00:00Z", false);
+    }
+
+    @Test
+    void findsTheNextOpening() {
+        schedule(window(DayOfWeek.MONDAY, "09:00", "17:00"), window(DayOfWeek.WEDNESDAY, "09:00", "17:00"));
+
+        calendar.advance(Instant.parse(MONDAY + "12:00:00Z"));
+
+        assertEquals(Instant.parse(WEDNESDAY + "09:00:00Z"), calendar.nextWindowOpen("u1"));
+    }
+
+    @Test
+    void dropsTheOldEdgesWhenTheScheduleChanges() {
+        schedule(window(DayOfWeek.MONDAY, "09:00", "17:00"));
+        calendar.advance(Instant.parse(MONDAY + "08:00:00Z"));
+
+        UserSettings moved = settings(window(DayOfWeek.MONDAY, "13:00", "14:00"));
+        when(settingsRepository.findByUserId("u1")).thenReturn(Optional.of(moved));
+        calendar.refresh("u1");
+
+        assertInWindowAt(MONDAY + "09:30:00Z", false);
+        assertInWindowAt(MONDAY + "13:00:00Z", true);
+        assertInWindowAt(MONDAY + "14:00:00Z", false);
+        assertInWindowAt(MONDAY + "17:30:00Z", false);
+    }
+
+    @Test
+    void leavesUsersWithoutWorkingHoursInWindow() {
+        schedule(window(DayOfWeek.MONDAY, "09:00", "17:00"));
+
+        calendar.advance(Instant.parse(MONDAY + "03:00:00Z"));
+
+        assertTrue(calendar.isInWindow("someone-else"));
+        assertFalse(calendar.isInWindow("u1"));
+    }
+
+    private void assertInWindowAt(String instant, boolean expected) {
+        calendar.advance(Instant.parse(instant));
+        assertEquals(expected, calendar.isInWindow("u1"), "in window at " + instant);
+    }
+
+    private void schedule(WorkingHoursWindow... windows) {
+        UserSettings settings = settings(windows);
+        // Every week recompile streams the schedules again
+        when(settingsRepository.streamByWorkingHoursEnabledTrue()).thenAnswer(invocation -> Stream.of(settings));
+        when(settingsRepository.findByUserId("u1")).thenReturn(Optional.of(settings));
+    }
+
+    private static UserSettings settings(WorkingHoursWindow... windows) {
+        return UserSettings.builder()
+                .userId("u1")
+                .workingHoursEnabled(true)
+                .timezoneId("UTC")
+                .weeklySchedule(List.of(windows))
+                .build();
+    }
+
+    private static WorkingHoursWindow window(DayOfWeek day, String start, String end) {
+        return WorkingHoursWindow.builder().dayOfWeek(day).start(start).end(end).build();
+    }
+}
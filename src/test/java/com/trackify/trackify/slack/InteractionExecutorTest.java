@@ -0,0 +1,78 @@
+package com.trackify.trackify.slack;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InteractionExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InteractionExecutor executor = new InteractionExecutor(meterRegistry, 1, 1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void rejectsWorkOnceTheQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(executor.submit("running", () -> {
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The only worker is busy: one task may wait, the next one is dropped
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        AtomicBoolean droppedRan = new AtomicBoolean();
+        assertTrue(executor.submit("queued", queuedRan::countDown));
+        assertFalse(executor.submit("dropped", () -> droppedRan.set(true)));
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1.0, meterRegistry.get("trackify.slack.async.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+        assertFalse(droppedRan.get());
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    void acceptsWorkAgainOnceTheQueueDrains() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(2);
+        executor.submit("running", () -> {
+            started.countDown();
+            await(release);
+            ran.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit("queued", ran::countDown);
+        assertFalse(executor.submit("dropped", () -> { }));
+
+        release.countDown();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch later = new CountDownLatch(1);
+        assertTrue(executor.submit("later", later::countDown));
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.trackify.trackify.slack;
+
+import com.slack.api.bolt.middleware.MiddlewareChain;
+import com.slack.api.bolt.request.RequestHeaders;
+import com.slack.api.bolt.request.builtin.EventRequest;
+import com.slack.api.bolt.response.Response;
+import com.trackify.trackify.model.ProcessedSlackRequest;
+import com.trackify.trackify.repository.ProcessedSlackRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SlackRequestDeduplicatorTest {
+
+    private final ProcessedSlackRequestRepository processedRequestRepository = mock(ProcessedSlackRequestRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MiddlewareChain chain = mock(MiddlewareChain.class);
+
+    @Test
+    void dropsARetriedEventId() throws Exception {
+        SlackRequestDeduplicator deduplicator = deduplicator("memory");
+        when(chain.next(any())).thenReturn(Response.ok());
+
+        deduplicator.apply(event("Ev1", null), Response.builder().build(), chain);
+        Response retry = deduplicator.apply(event("Ev1", "1"), Response.builder().build(), chain);
+
+        assertEquals(200, retry.getStatusCode());
+        verify(chain, times(1)).next(any());
+        assertEquals(1.0, meterRegistry.get("trackify.slack.dedup.duplicates").counter().count());
+        verifyNoInteractions(processedRequestRepository);
+    }
+
+    @Test
+    void dispatchesDistinctEventIds() throws Exception {
+        SlackRequestDeduplicator deduplicator = deduplicator("memory");
+        when(chain.next(any())).thenReturn(Response.ok());
+
+        deduplicator.apply(event("Ev1", null), Response.builder().build(), chain);
+        deduplicator.apply(event("Ev2", null), Response.builder().build(), chain);
+
+        verify(chain, times(2)).next(any());
+    }
+
+    @Test
+    void letsTheRetryThroughWhenTheFirstDeliveryFailed() throws Exception {
+        SlackRequestDeduplicator deduplicator = deduplicator("memory");
+        when(chain.next(any())).thenThrow(new IllegalStateException("handler failed")).thenReturn(Response.ok());
+
+        assertThrows(IllegalStateException.class,
+                () -> deduplicator.apply(event("Ev1", null), Response.builder().build(), chain));
+        deduplicator.apply(event("Ev1", "1"), Response.builder().build(), chain);
+
+        verify(chain, times(2)).next(any());
+    }
+
+    @Test
+    void dropsAnEventIdAnotherInstanceAlreadyClaimed() throws Exception {
+        SlackRequestDeduplicator deduplicator = deduplicator("mongo");
+        when(processedRequestRepository.insert(any(ProcessedSlackRequest.class)))
+                .thenThrow(new DuplicateKeyException("event:Ev1"));
+
+        deduplicator.apply(event("Ev1", "1"), Response.builder().build(), chain);
+
+        verifyNoInteractions(chain);
+    }
+
+    private SlackRequestDeduplicator deduplicator(String store) {
+        return new SlackRequestDeduplicator(processedRequestRepository, meterRegistry, store, 600, 1000);
+    }
+
+    private static EventRequest event(String eventId, String retryNum) {
+        String body = "{\"type\":\"event_callback\",\"team_id\":\"T1\",\"event_id\":\"" + eventId + "\","
+                + "\"event\":{\"type\":\"app_home_opened\",\"user\":\"U1\"}}";
+        Map<String, List<String>> headers = retryNum != null ? Map.of("X-Slack-Retry-Num", List.of(retryNum)) : Map.of();
+        return new EventRequest(body, new RequestHeaders(headers));
+    }
+}
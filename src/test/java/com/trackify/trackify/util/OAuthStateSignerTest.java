@@ -0,0 +1,61 @@
+package com.trackify.trackify.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OAuthStateSignerTest {
+
+    private final OAuthStateSigner signer = new OAuthStateSigner("state-secret", "encryption-secret", 600, 100);
+
+    @Test
+    void verifiesTheSubjectOfAnIssuedState() {
+        String state = signer.issue("user-1");
+
+        assertEquals("user-1", signer.verify(state).orElseThrow());
+        // Verifying does not use the state up
+        assertEquals("user-1", signer.verify(state).orElseThrow());
+    }
+
+    @Test
+    void consumesAStateOnlyOnce() {
+        String state = signer.issue("user-1");
+
+        assertEquals("user-1", signer.consume(state).orElseThrow());
+        assertTrue(signer.consume(state).isEmpty());
+        assertTrue(signer.verify(state).isEmpty());
+    }
+
+    @Test
+    void rejectsTamperedStates() {
+        String state = signer.issue("user-1");
+        String otherSubject = signer.issue("user-2");
+        String forged = otherSubject.substring(0, otherSubject.indexOf('.')) + state.substring(state.indexOf('.'));
+
+        assertTrue(signer.verify(forged).isEmpty());
+        assertTrue(signer.verify(state + "x").isEmpty());
+        assertTrue(signer.verify("not-a-state").isEmpty());
+        assertTrue(signer.verify(null).isEmpty());
+    }
+
+    @Test
+    void rejectsStatesSignedWithAnotherSecret() {
+        OAuthStateSigner other = new OAuthStateSigner("other-secret", "encryption-secret", 600, 100);
+
+        assertTrue(signer.verify(other.issue("user-1")).isEmpty());
+    }
+
+    @Test
+    void refusesToShareTheEncryptionSecret() {
+        assertThrows(IllegalStateException.class, () -> new OAuthStateSigner("same", "same", 600, 100));
+    }
+
+    @Test
+    void failsToIssueWithoutASecret() {
+        OAuthStateSigner unconfigured = new OAuthStateSigner("", "encryption-secret", 600, 100);
+
+        assertThrows(IllegalStateException.class, () -> unconfigured.issue("user-1"));
+    }
+}
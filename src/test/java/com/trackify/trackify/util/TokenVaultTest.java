@@ -0,0 +1,59 @@
+package com.trackify.trackify.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenVaultTest {
+
+    private final EncryptionUtil encryptionUtil = mock(EncryptionUtil.class);
+    private final TokenVault vault = new TokenVault(encryptionUtil);
+
+    TokenVaultTest() {
+        ReflectionTestUtils.setField(vault, "enabled", true);
+        ReflectionTestUtils.setField(vault, "defaultTtlSeconds", 3600L);
+    }
+
+    @Test
+    void decryptsOncePerCiphertext() {
+        when(encryptionUtil.decrypt("c1")).thenReturn("token-1");
+
+        assertEquals("token-1", vault.reveal(TokenVault.SLACK_USER_SLOT + "u1", "c1", null));
+        assertEquals("token-1", vault.reveal(TokenVault.SLACK_USER_SLOT + "u1", "c1", null));
+
+        verify(encryptionUtil, times(1)).decrypt("c1");
+    }
+
+    @Test
+    void evictsEveryTokenOfAUserAndReusesTheirSlots() {
+        when(encryptionUtil.decrypt("spotify")).thenReturn("spotify-token");
+        when(encryptionUtil.decrypt("slack")).thenReturn("slack-token");
+        when(encryptionUtil.decrypt("other")).thenReturn("other-token");
+        vault.reveal(TokenVault.SPOTIFY_ACCESS_SLOT + "u1", "spotify", null);
+        vault.reveal(TokenVault.SLACK_BOT_SLOT + "u1", "slack", null);
+        vault.reveal(TokenVault.SLACK_BOT_SLOT + "u2", "other", null);
+
+        vault.evictUser("u1");
+
+        assertEquals(1, vault.size());
+        when(encryptionUtil.decrypt("slack-2")).thenReturn("a-longer-replacement-token");
+        assertEquals("a-longer-replacement-token", vault.reveal(TokenVault.SLACK_BOT_SLOT + "u1", "slack-2", null));
+        assertEquals("other-token", vault.reveal(TokenVault.SLACK_BOT_SLOT + "u2", "other", null));
+    }
+
+    @Test
+    void keepsTokensLongerThanASlot() {
+        String longToken = "x".repeat(2000);
+        when(encryptionUtil.decrypt("long")).thenReturn(longToken);
+
+        vault.reveal(TokenVault.SPOTIFY_ACCESS_SLOT + "u1", "long", null);
+
+        assertEquals(longToken, vault.reveal(TokenVault.SPOTIFY_ACCESS_SLOT + "u1", "long", null));
+        vault.destroyAll();
+    }
+}